@@ -0,0 +1,165 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * SWAR (SIMD within a register) letter-shift kernels for ASCII text, used by the
+ * Caesar and Vigenere ciphers for long inputs. Text is handled as bytes, eight lanes
+ * per long: every lane is case-folded, tested for A-Z, shifted and wrapped modulo 26
+ * with a handful of word-wide adds and masks, and non-letters pass through untouched.
+ * Output matches the ciphers' one-char-at-a-time loops exactly.
+ *
+ * All lanes must hold ASCII (below 0x80), which keeps per-lane arithmetic from
+ * carrying into the neighbouring lane; callers check with isAscii first.
+ */
+final class AsciiShiftKernel {
+
+    /** Longest Vigenere key compiled into a lane table (256 words per key position) */
+    static final int MAX_TABLE_KEY_LENGTH = 32;
+
+    private static final VarHandle WORD =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long LOW = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
+
+    private AsciiShiftKernel() {
+    }
+
+    /**
+     * @return true if every char of text is ASCII
+     */
+    static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** High bit of each lane set where the lane is at least c (1 <= c <= 128) */
+    private static long atLeast(long x, int c) {
+        return (x + (0x80 - c) * LOW) & HIGH;
+    }
+
+    /** Uppercases the a-z lanes */
+    private static long fold(long x) {
+        long lower = atLeast(x, 'a') & ~atLeast(x, 'z' + 1);
+        return x - (lower >>> 2);
+    }
+
+    /** High bit of each A-Z lane of a folded word */
+    private static long letters(long folded) {
+        return atLeast(folded, 'A') & ~atLeast(folded, 'Z' + 1);
+    }
+
+    /** Subtracts 26 from the letter lanes that were shifted past 'Z' */
+    private static long wrap(long shifted, long letters) {
+        long over = atLeast(shifted, 'Z' + 1) & letters;
+        return shifted - (over >>> 7) * 26;
+    }
+
+    /** Gathers the high bit of lane i into bit i */
+    private static int laneMask(long highBits) {
+        return (int) (((highBits >>> 7) * 0x0102040810204080L) >>> 56);
+    }
+
+    /** Alphabet index of an ASCII letter of either case, -1 otherwise */
+    private static int letterIndex(int c) {
+        int upper = c & ~0x20;
+        return upper >= 'A' && upper <= 'Z' ? upper - 'A' : -1;
+    }
+
+    /**
+     * Caesar-shifts data in place: letters are uppercased and shifted, everything else kept
+     * @param data ASCII bytes
+     * @param shift Shift in the range 0-25
+     */
+    static void caesar(byte[] data, int shift) {
+        int i = 0;
+        for (; i + 8 <= data.length; i += 8) {
+            long x = fold((long) WORD.get(data, i));
+            long letters = letters(x);
+            WORD.set(data, i, wrap(x + (letters >>> 7) * shift, letters));
+        }
+        for (; i < data.length; i++) {
+            int index = letterIndex(data[i]);
+            if (index >= 0) {
+                data[i] = (byte) ('A' + (index + shift) % 26);
+            }
+        }
+    }
+
+    /**
+     * Precomputes, for every key position and every pattern of letter lanes in a word,
+     * the word of shifts to add: lane i gets the shift of the key letter it will use.
+     * @param shifts Compiled Vigenere key, at most MAX_TABLE_KEY_LENGTH long
+     * @return Table indexed by keyOffset * 256 + lane mask
+     */
+    static long[] vigenereTable(byte[] shifts) {
+        long[] table = new long[shifts.length * 256];
+        for (int offset = 0; offset < shifts.length; offset++) {
+            for (int mask = 0; mask < 256; mask++) {
+                long word = 0;
+                int k = offset;
+                for (int lane = 0; lane < 8; lane++) {
+                    if ((mask & (1 << lane)) != 0) {
+                        word |= (long) shifts[k] << (8 * lane);
+                        k = k + 1 == shifts.length ? 0 : k + 1;
+                    }
+                }
+                table[offset * 256 + mask] = word;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Vigenere-shifts data[from, to) in place
+     * @param shifts Compiled key
+     * @param table Lane table from vigenereTable(shifts)
+     * @param keyOffset Index into shifts for the first letter
+     * @return Index into shifts for the next letter after this range
+     */
+    static int vigenere(byte[] data, int from, int to, byte[] shifts, long[] table, int keyOffset) {
+        int k = keyOffset;
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            long x = fold((long) WORD.get(data, i));
+            long letters = letters(x);
+            int mask = laneMask(letters);
+            WORD.set(data, i, wrap(x + table[k * 256 + mask], letters));
+            k += Integer.bitCount(mask);
+            if (k >= shifts.length) {
+                k %= shifts.length;
+            }
+        }
+        for (; i < to; i++) {
+            int index = letterIndex(data[i]);
+            if (index >= 0) {
+                int shifted = index + shifts[k];
+                data[i] = (byte) ('A' + (shifted >= 26 ? shifted - 26 : shifted));
+                k = k + 1 == shifts.length ? 0 : k + 1;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * @return Number of ASCII letters in data[from, to)
+     */
+    static int countLetters(byte[] data, int from, int to) {
+        int count = 0;
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            count += Long.bitCount(letters(fold((long) WORD.get(data, i))));
+        }
+        for (; i < to; i++) {
+            if (letterIndex(data[i]) >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
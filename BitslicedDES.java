@@ -0,0 +1,148 @@
+import java.util.Arrays;
+
+/**
+ * Bitsliced DES engine: encrypts or decrypts 64 independent blocks in one pass.
+ * The blocks are transposed so that each long holds one bit position of all 64
+ * blocks. The permutations then reduce to picking array elements, and the S-boxes
+ * are evaluated with AND/OR on whole longs, with no data-dependent table lookups.
+ * Used by DESCipher when it is created with Engine.BITSLICED.
+ */
+final class BitslicedDES {
+
+    /** Number of blocks processed per pass */
+    static final int LANES = 64;
+
+    /**
+     * For each S-box, row and output bit (most significant first), the columns
+     * whose S-box value has that bit set
+     */
+    private static final int[][][][] SBOX_ONES = buildSBoxOnes();
+
+    private BitslicedDES() {
+    }
+
+    /**
+     * Encrypts or decrypts 64 blocks in place
+     * @param blocks Exactly 64 blocks
+     * @param schedule The key schedule
+     * @param decrypt true to apply the subkeys in reverse order
+     */
+    static void crypt(long[] blocks, DESKeySchedule schedule, boolean decrypt) {
+        transpose(blocks);
+
+        // blocks[j] now holds bit j+1 (from the most significant end) of every block
+        long[] L = new long[32];
+        long[] R = new long[32];
+        for (int i = 0; i < 32; i++) {
+            L[i] = blocks[DESCipher.IP[i] - 1];
+            R[i] = blocks[DESCipher.IP[32 + i] - 1];
+        }
+
+        long[] in = new long[6];
+        long[] out = new long[32];
+        long[] minterms = new long[64];
+        for (int round = 1; round <= 16; round++) {
+            long key = schedule.subkey(decrypt ? 17 - round : round);
+
+            for (int box = 0; box < 8; box++) {
+                for (int b = 0; b < 6; b++) {
+                    int bit = 6 * box + b;
+                    // Key bits are the same for every block: XOR with all ones or nothing
+                    long keyMask = -((key >>> (47 - bit)) & 1L);
+                    in[b] = R[DESCipher.EXPANSION[bit] - 1] ^ keyMask;
+                }
+                sBox(box, in, minterms, out);
+            }
+
+            for (int i = 0; i < 32; i++) {
+                long newR = L[i] ^ out[DESCipher.P[i] - 1];
+                L[i] = R[i];
+                R[i] = newR;
+            }
+        }
+
+        // Pre-output is R followed by L
+        for (int i = 0; i < 64; i++) {
+            int pos = DESCipher.IPi[i] - 1;
+            blocks[i] = pos < 32 ? R[pos] : L[pos - 32];
+        }
+
+        transpose(blocks);
+    }
+
+    /**
+     * Evaluates one S-box on 64 blocks. The four column bits are decoded into 16
+     * disjoint minterms, each row's output bits are ORs of those minterms, and the
+     * row bits (first and last input) then select one row per block.
+     */
+    private static void sBox(int box, long[] in, long[] minterms, long[] out) {
+        minterms[0] = -1L;
+        int count = 1;
+        for (int b = 1; b <= 4; b++) {
+            long x = in[b];
+            for (int m = count - 1; m >= 0; m--) {
+                long term = minterms[m];
+                minterms[2 * m + 1] = term & x;
+                minterms[2 * m] = term & ~x;
+            }
+            count *= 2;
+        }
+
+        long first = in[0];
+        long last = in[5];
+        long row0 = ~first & ~last;
+        long row1 = ~first & last;
+        long row2 = first & ~last;
+        long row3 = first & last;
+
+        int[][][] ones = SBOX_ONES[box];
+        for (int o = 0; o < 4; o++) {
+            out[4 * box + o] = (row0 & anyOf(minterms, ones[0][o]))
+                             | (row1 & anyOf(minterms, ones[1][o]))
+                             | (row2 & anyOf(minterms, ones[2][o]))
+                             | (row3 & anyOf(minterms, ones[3][o]));
+        }
+    }
+
+    private static long anyOf(long[] minterms, int[] columns) {
+        long bit = 0;
+        for (int col : columns) {
+            bit |= minterms[col];
+        }
+        return bit;
+    }
+
+    private static int[][][][] buildSBoxOnes() {
+        int[][][][] ones = new int[8][4][4][];
+        for (int box = 0; box < 8; box++) {
+            for (int row = 0; row < 4; row++) {
+                for (int o = 0; o < 4; o++) {
+                    int[] columns = new int[16];
+                    int n = 0;
+                    for (int col = 0; col < 16; col++) {
+                        if (((DESCipher.SBOX[box][row][col] >>> (3 - o)) & 1) != 0) {
+                            columns[n++] = col;
+                        }
+                    }
+                    ones[box][row][o] = Arrays.copyOf(columns, n);
+                }
+            }
+        }
+        return ones;
+    }
+
+    /**
+     * Transposes a 64x64 bit matrix in place (bit 0 of a row is its most
+     * significant bit). Applying it twice restores the original.
+     */
+    static void transpose(long[] a) {
+        long m = 0x00000000FFFFFFFFL;
+        for (int j = 32; j != 0; j >>>= 1, m ^= (m << j)) {
+            for (int k = 0; k < 64; k = (k + j + 1) & ~j) {
+                long t = (a[k] ^ (a[k + j] >>> j)) & m;
+                a[k] ^= t;
+                a[k + j] ^= t << j;
+            }
+        }
+    }
+}
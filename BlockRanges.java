@@ -0,0 +1,59 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join splitting of loops over independent blocks, shared by the DES block
+ * modes and the transposition permutations. Each caller passes the number of blocks
+ * worth one task, since a DES block costs far more than a transposition block.
+ */
+final class BlockRanges {
+
+    private BlockRanges() {}
+
+    /** Body of a loop over block indices [fromBlock, toBlock) */
+    interface BlockRange {
+        void process(int fromBlock, int toBlock);
+    }
+
+    /**
+     * Runs body over all blocks, splitting ranges larger than threshold across the
+     * common pool; smaller inputs run on the calling thread
+     * @param blocks Number of blocks
+     * @param threshold Blocks handled by one fork/join task (at least 1)
+     * @param body The loop body
+     */
+    static void forEach(int blocks, int threshold, BlockRange body) {
+        if (blocks <= threshold) {
+            body.process(0, blocks);
+        } else {
+            ForkJoinPool.commonPool().invoke(new Task(body, threshold, 0, blocks));
+        }
+    }
+
+    /** Fork/join task that halves its block range until it is below the threshold */
+    private static final class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient BlockRange body;
+        private final int threshold;
+        private final int from;
+        private final int to;
+
+        Task(BlockRange body, int threshold, int from, int to) {
+            this.body = body;
+            this.threshold = threshold;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                body.process(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Task(body, threshold, from, mid), new Task(body, threshold, mid, to));
+        }
+    }
+}
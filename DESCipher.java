@@ -3,8 +3,17 @@
  * (Educational Use Only – Not for Production Security)
  */
 
-import java.math.BigInteger;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DESCipher implements EncryptionAlgorithm {
  
@@ -20,30 +29,30 @@ public class DESCipher implements EncryptionAlgorithm {
          41,52,31,37,47,55,30,40,51,45,33,48,44,49,39,56,34,53,46,42,50,36,29,32
      };
  
-     private static final int[] IP = {
+     static final int[] IP = {
          58,50,42,34,26,18,10,2,60,52,44,36,28,20,12,4,62,54,46,38,30,22,14,6,
          64,56,48,40,32,24,16,8,57,49,41,33,25,17,9,1,59,51,43,35,27,19,11,3,
          61,53,45,37,29,21,13,5,63,55,47,39,31,23,15,7
      };
  
-     private static final int[] IPi = {
+     static final int[] IPi = {
          40,8,48,16,56,24,64,32,39,7,47,15,55,23,63,31,
          38,6,46,14,54,22,62,30,37,5,45,13,53,21,61,29,
          36,4,44,12,52,20,60,28,35,3,43,11,51,19,59,27,
          34,2,42,10,50,18,58,26,33,1,41,9,49,17,57,25
      };
  
-     private static final int[] EXPANSION = {
+     static final int[] EXPANSION = {
          32,1,2,3,4,5,4,5,6,7,8,9,8,9,10,11,12,13,12,13,14,15,16,17,
          16,17,18,19,20,21,20,21,22,23,24,25,24,25,26,27,28,29,28,29,30,31,32,1
      };
  
-     private static final int[] P = {
+     static final int[] P = {
          16,7,20,21,29,12,28,17,1,15,23,26,5,18,31,10,
          2,8,24,14,32,27,3,9,19,13,30,6,22,11,4,25
      };
  
-     private static final int[][][] SBOX = {
+     static final int[][][] SBOX = {
         // S1
         {{14,4,13,1,2,15,11,8,3,10,6,12,5,9,0,7},
          {0,15,7,4,14,2,13,1,10,6,12,11,9,5,3,8},
@@ -86,20 +95,87 @@ public class DESCipher implements EncryptionAlgorithm {
          {2,1,14,7,4,10,8,13,15,12,9,0,3,5,6,11}}
     };
  
-     private long[] K = new long[17];
+     /** S-box lookups with the P permutation folded in, see buildSPTables */
+     private static final int[][] SP = buildSPTables();
  
-     /** Converts key string (first 8 chars) to 64-bit binary string */
-     private static String keyStringTo64BitBinary(String key) {
-         byte[] k = key.getBytes(StandardCharsets.UTF_8);
-         StringBuilder sb = new StringBuilder(64);
-         for (int i = 0; i < 8; i++) {
-             int v = (i < k.length ? k[i] : 0) & 0xFF;
-             for (int b = 7; b >= 0; b--) sb.append(((v >>> b) & 1));
-         }
-         return sb.toString();
+     /** Big-endian 64-bit view of byte arrays, for reading and writing whole blocks */
+     private static final VarHandle BLOCK_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+ 
+     /** Capacity of the key-schedule cache shared by DESCipher instances created with the default constructor */
+     public static final int DEFAULT_CACHE_CAPACITY = 64;
+ 
+     private static final KeyCache<Long, DESKeySchedule> SHARED_SCHEDULES = new KeyCache<>(DEFAULT_CACHE_CAPACITY);
+ 
+     private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+ 
+     /** Blocks handled by one fork/join task; smaller inputs run on the calling thread */
+     static final int PARALLEL_BLOCK_THRESHOLD = 4096;
+ 
+     /** Block engine used by the bulk ECB and CTR paths; both give identical output */
+     public enum Engine {
+         /** One block at a time with the combined S-box/P tables */
+         TABLE,
+         /** 64 blocks per pass with bitwise S-box logic (see BitslicedDES) */
+         BITSLICED
      }
  
-     /** Utility: convert UTF-8 to binary string */
+     // Only immutable settings and the (thread-safe) cache are instance state,
+     // so one DESCipher can be shared between threads
+     private final KeyCache<Long, DESKeySchedule> scheduleCache;
+     private final Engine engine;
+ 
+     /** Creates a table-driven cipher that uses the shared key-schedule cache */
+     public DESCipher() {
+         this(Engine.TABLE);
+     }
+ 
+     /**
+      * Creates a cipher that uses the shared key-schedule cache
+      * @param engine Block engine for bulk ECB and CTR work
+      */
+     public DESCipher(Engine engine) {
+         this.scheduleCache = SHARED_SCHEDULES;
+         this.engine = engine;
+     }
+ 
+     /**
+      * Creates a table-driven cipher with its own key-schedule cache
+      * @param cacheCapacity Number of key schedules kept before least recently used ones are evicted
+      */
+     public DESCipher(int cacheCapacity) {
+         this(Engine.TABLE, cacheCapacity);
+     }
+ 
+     /**
+      * Creates a cipher with its own key-schedule cache
+      * @param engine Block engine for bulk ECB and CTR work
+      * @param cacheCapacity Number of key schedules kept before least recently used ones are evicted
+      */
+     public DESCipher(Engine engine, int cacheCapacity) {
+         this.scheduleCache = new KeyCache<>(cacheCapacity);
+         this.engine = engine;
+     }
+ 
+     /**
+      * @return The block engine used for bulk ECB and CTR work
+      */
+     public Engine getEngine() {
+         return engine;
+     }
+ 
+     /**
+      * @return The key-schedule cache used by this cipher, for its hit/miss counters
+      */
+     public KeyCache<Long, DESKeySchedule> getScheduleCache() {
+         return scheduleCache;
+     }
+ 
+     /** Converts key string (first 8 bytes, zero padded) to a 64-bit block */
+     private static long keyStringTo64Bit(String key) {
+         return readBlock(key.getBytes(StandardCharsets.UTF_8), 0);
+     }
+ 
+     /** Utility: convert UTF-8 to binary string (used by displaySteps only) */
      private static String utfToBin(String utf) {
          byte[] bytes = utf.getBytes(StandardCharsets.UTF_8);
          StringBuilder bin = new StringBuilder();
@@ -110,207 +186,516 @@ public class DESCipher implements EncryptionAlgorithm {
          return bin.toString();
      }
  
-     /** Utility: convert binary to hex (keep full length) */
-     private static String binToHex(String bin) {
-         String hex = new BigInteger(bin, 2).toString(16);
-         while (hex.length() < (bin.length() / 4)) hex = "0" + hex;
-         return hex.toUpperCase();
+     /** Reads 8 bytes big-endian from offset, zero padding past the end of the array */
+     static long readBlock(byte[] data, int offset) {
+         if (offset + 8 <= data.length) {
+             return (long) BLOCK_VIEW.get(data, offset);
+         }
+         return readTail(data, offset, data.length - offset);
      }
  
-     /** Build key schedule */
-     private void buildKeySchedule(String binKey) {
-         while (binKey.length() < 64) binKey = "0" + binKey;
+     /** Reads the first count (fewer than 8) bytes of a block, zero padding the rest */
+     static long readTail(byte[] data, int offset, int count) {
+         long block = 0;
+         for (int i = 0; i < 8; i++) {
+             block = (block << 8) | (i < count ? data[offset + i] & 0xFF : 0);
+         }
+         return block;
+     }
  
-         // Apply PC-1
-         StringBuilder binKey_PC1 = new StringBuilder();
-         for (int i : PC1) binKey_PC1.append(binKey.charAt(i - 1));
+     /** Writes a 64-bit block big-endian at offset */
+     static void writeBlock(long block, byte[] data, int offset) {
+         BLOCK_VIEW.set(data, offset, block);
+     }
  
-         String c = binKey_PC1.substring(0, 28);
-         String d = binKey_PC1.substring(28);
+     /**
+      * Applies a DES permutation table to the low inputBits bits of value.
+      * Table entries are 1-indexed from the most significant input bit, as in the standard.
+      */
+     private static long permute(long value, int inputBits, int[] table) {
+         long out = 0;
+         for (int pos : table) out = (out << 1) | ((value >>> (inputBits - pos)) & 1L);
+         return out;
+     }
+ 
+     /** Returns the key schedule for a key string, from the cache when possible */
+     DESKeySchedule keySchedule(String key) {
+         return keySchedule(keyStringTo64Bit(key));
+     }
+ 
+     /** Returns the key schedule for 8 key bytes (big-endian), from the cache when possible */
+     DESKeySchedule keySchedule(long key) {
+         return scheduleCache.get(key, DESCipher::buildKeySchedule);
+     }
+ 
+     /** Build key schedule */
+     static DESKeySchedule buildKeySchedule(long key) {
+         // Apply PC-1
+         long pc1 = permute(key, 64, PC1);
  
-         int cInt = Integer.parseInt(c, 2);
-         int dInt = Integer.parseInt(d, 2);
+         int cInt = (int) (pc1 >>> 28) & 0x0FFFFFFF;
+         int dInt = (int) pc1 & 0x0FFFFFFF;
  
+         long[] subkeys = new long[16];
          for (int i = 1; i < 17; i++) {
              int s = KEY_SHIFTS[i];
              cInt = ((cInt << s) | (cInt >>> (28 - s))) & 0x0FFFFFFF;
              dInt = ((dInt << s) | (dInt >>> (28 - s))) & 0x0FFFFFFF;
  
              long merged = ((long) cInt << 28) | dInt;
-             String mergedStr = Long.toBinaryString(merged);
-             while (mergedStr.length() < 56) mergedStr = "0" + mergedStr;
- 
-             StringBuilder subKey = new StringBuilder();
-             for (int j : PC2) subKey.append(mergedStr.charAt(j - 1));
-             K[i] = Long.parseLong(subKey.toString(), 2);
+             subkeys[i - 1] = permute(merged, 56, PC2);
          }
+         return new DESKeySchedule(key, subkeys);
      }
  
     /** Encrypt plaintext (8 bytes max) with key */
     @Override
     public String encrypt(String plaintext, String key) {
-         String keyBin = keyStringTo64BitBinary(key);
-         buildKeySchedule(keyBin);
+         return toHex(encryptBytes(plaintext.getBytes(StandardCharsets.UTF_8), key));
+     }
  
-         String binPlaintext = utfToBin(plaintext);
-         while (binPlaintext.length() % 64 != 0) binPlaintext += "0";
+     /**
+      * Encrypts bytes in ECB mode, zero padding the final block
+      * @param data The plaintext bytes
+      * @param key The key (first 8 bytes used)
+      * @return The ciphertext bytes, a whole number of blocks
+      */
+     public byte[] encryptBytes(byte[] data, String key) {
+         byte[] out = new byte[paddedLength(data.length)];
+         ecb(data, 0, out, 0, data.length, keySchedule(key), false, engine);
+         return out;
+     }
  
-         StringBuilder binCiphertext = new StringBuilder();
-         for (int i = 0; i < binPlaintext.length(); i += 64) {
-             String block = binPlaintext.substring(i, i + 64);
-             binCiphertext.append(encryptBlock(block));
-         }
+     /**
+      * Encrypts a region of a byte array in ECB mode into a caller-supplied buffer.
+      * The input and output regions may be the same.
+      * @param in The plaintext array
+      * @param inOff Start of the plaintext
+      * @param len Number of plaintext bytes; the final block is zero padded
+      * @param out The ciphertext array, with room for paddedLength(len) bytes
+      * @param outOff Where to start writing ciphertext
+      * @param key The key (first 8 bytes used)
+      * @return Number of ciphertext bytes written
+      */
+     public int encryptBytes(byte[] in, int inOff, int len, byte[] out, int outOff, String key) {
+         int outLen = paddedLength(len);
+         Objects.checkFromIndexSize(inOff, len, in.length);
+         Objects.checkFromIndexSize(outOff, outLen, out.length);
+         ecb(in, inOff, out, outOff, len, keySchedule(key), false, engine);
+         return outLen;
+     }
  
-         return binToHex(binCiphertext.toString());
+     /**
+      * Encrypts the remaining bytes of a heap or direct buffer in ECB mode,
+      * zero padding the final block. Both buffers' positions are advanced.
+      * @param in The plaintext
+      * @param out Receives paddedLength(in.remaining()) ciphertext bytes
+      * @param key The key (first 8 bytes used)
+      * @return Number of ciphertext bytes written
+      */
+     public int encryptBytes(ByteBuffer in, ByteBuffer out, String key) {
+         return ecb(in, out, keySchedule(key), false, engine);
      }
  
-     /** Encrypt one block (simplified; same logic as your encryptBlock) */
-     private String encryptBlock(String block) {
-         StringBuilder permuted = new StringBuilder();
-         for (int i : IP) permuted.append(block.charAt(i - 1));
+     /**
+      * @param len A plaintext length in bytes
+      * @return The ciphertext length after zero padding to whole blocks
+      */
+     public static int paddedLength(int len) {
+         return (len + 7) / 8 * 8;
+     }
  
-         String L = permuted.substring(0, 32);
-         String R = permuted.substring(32);
+     /** Encrypt one 64-bit block */
+     static long encryptBlock(long block, DESKeySchedule schedule) {
+         return feistel(block, schedule, false);
+     }
  
-         for (int round = 1; round <= 16; round++) {
-             String key = Long.toBinaryString(K[round]);
-             while (key.length() < 48) key = "0" + key;
+     /** Decrypt one 64-bit block */
+     static long decryptBlock(long block, DESKeySchedule schedule) {
+         return feistel(block, schedule, true);
+     }
  
-             String fRes = f(R, key);
-             long fLong = Long.parseLong(fRes, 2);
-             long lLong = Long.parseLong(L, 2);
-             long newR = lLong ^ fLong;
+     /** IP, 16 Feistel rounds and IP^-1; decryption uses the subkeys in reverse order */
+     private static long feistel(long block, DESKeySchedule schedule, boolean decrypt) {
+         return finalPermutation(rounds(initialPermutation(block), schedule, decrypt));
+     }
  
-             L = R;
-             R = String.format("%32s", Long.toBinaryString(newR)).replace(' ', '0');
-         }
+     /** Applies IP */
+     static long initialPermutation(long block) {
+         return permute(block, 64, IP);
+     }
  
-         String RL = R + L;
-         StringBuilder output = new StringBuilder();
-         for (int i : IPi) output.append(RL.charAt(i - 1));
-         return output.toString();
+     /** Applies IP^-1 */
+     static long finalPermutation(long block) {
+         return permute(block, 64, IPi);
      }
  
-     /** Feistel function f() */
-     private static String f(String R, String key) {
-         StringBuilder exp = new StringBuilder();
-         for (int i : EXPANSION) exp.append(R.charAt(i - 1));
+     /**
+      * The 16 Feistel rounds on an IP-permuted block L||R, returning the
+      * pre-output R||L. Since IP^-1 followed by IP is the identity, chained DES
+      * operations (as in Triple DES) can call this back to back and permute once.
+      */
+     static long rounds(long permuted, DESKeySchedule schedule, boolean decrypt) {
+         return rounds(permuted, schedule.subkeys, decrypt);
+     }
  
-         long m = Long.parseLong(exp.toString(), 2);
-         long k = Long.parseLong(key, 2);
-         long xored = m ^ k;
+     /**
+      * The 16 Feistel rounds with a raw subkey array (index 0 is round 1), for
+      * callers such as DESKeySearch that update subkeys in place between blocks
+      */
+     static long rounds(long permuted, long[] subkeys, boolean decrypt) {
+         int L = (int) (permuted >>> 32);
+         int R = (int) permuted;
  
-         String bin = String.format("%48s", Long.toBinaryString(xored)).replace(' ', '0');
-         // apply S-boxes and P permutation (reuse your original S-box + P logic)
-         // ...
+         for (int round = 1; round <= 16; round++) {
+             long key = subkeys[decrypt ? 16 - round : round - 1];
+             int newR = L ^ f(R, key);
+             L = R;
+             R = newR;
+         }
  
-         // for brevity, assume s-box implementation returns final 32-bit string
-         return applySBoxesAndP(bin);
+         return ((long) R << 32) | (L & 0xFFFFFFFFL);
      }
  
-    private static String applySBoxesAndP(String bin) {
-        // Split into eight 6-bit strings
-        String[] sin = new String[8];
-        for (int i = 0; i < 8; i++) {
-            sin[i] = bin.substring(i * 6, (i + 1) * 6);
-        }
-        
-        // Apply S-boxes
-        StringBuilder sout = new StringBuilder();
+     /**
+      * Feistel function f().
+      * Group i of the expansion E(R) is the 6 bits of R starting one bit before
+      * position 4i (wrapping around), so it is taken by rotation instead of
+      * walking EXPANSION bit by bit. Each group is XORed with its 6 key bits and
+      * looked up in the combined S-box/P table.
+      */
+     private static int f(int R, long key) {
+         int out = 0;
+         for (int i = 0; i < 8; i++) {
+             int six = (Integer.rotateLeft(R, 4 * i - 1) >>> 26) ^ ((int) (key >>> (42 - 6 * i)) & 0x3F);
+             out ^= SP[i][six];
+         }
+         return out;
+     }
+ 
+    /**
+     * Builds the eight combined S-box/P tables. SP[i][x] is the output of S-box i
+     * for the 6-bit input x, placed at its nibble and already permuted by P, so
+     * the outputs of the eight S-boxes combine with XOR.
+     */
+    private static int[][] buildSPTables() {
+        int[][] sp = new int[8][64];
         for (int i = 0; i < 8; i++) {
-            int[][] curS = SBOX[i];
-            String cur = sin[i];
-            
-            // Get row (first and last bit)
-            int row = Integer.parseInt(String.valueOf(cur.charAt(0)) + cur.charAt(5), 2);
-            // Get column (middle 4 bits)
-            int col = Integer.parseInt(cur.substring(1, 5), 2);
-            
-            // Lookup in S-box
-            int sValue = curS[row][col];
-            String sBin = Integer.toBinaryString(sValue);
-            while (sBin.length() < 4) sBin = "0" + sBin;
-            sout.append(sBin);
-        }
-        
-        // Apply P permutation
-        StringBuilder mergedP = new StringBuilder();
-        for (int i : P) {
-            mergedP.append(sout.charAt(i - 1));
+            for (int x = 0; x < 64; x++) {
+                // Row is the first and last bit, column the middle 4 bits
+                int row = ((x >>> 4) & 0x2) | (x & 0x1);
+                int col = (x >>> 1) & 0xF;
+                long sout = (long) SBOX[i][row][col] << (28 - 4 * i);
+                sp[i][x] = (int) permute(sout, 32, P);
+            }
         }
-        
-        return mergedP.toString();
-    }
-    
-    /** Utility: convert hex to binary string */
-    private static String hexToBin(String hex) {
-        BigInteger b = new BigInteger(hex, 16);
-        String bin = b.toString(2);
-        // Ensure length is multiple of 4 (since each hex digit is 4 bits)
-        while (bin.length() % 4 != 0) bin = "0" + bin;
-        return bin;
+        return sp;
     }
     
-    /** Utility: convert binary to UTF-8 string */
-    private static String binToUTF(String bin) {
-        byte[] bytes = new byte[bin.length() / 8];
+    /**
+     * Encodes bytes as upper-case hex, the text form used by encrypt()
+     * @param bytes The bytes to encode
+     * @return Two hex digits per byte
+     */
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
         for (int i = 0; i < bytes.length; i++) {
-            String byteStr = bin.substring(i * 8, (i + 1) * 8);
-            bytes[i] = (byte) Integer.parseInt(byteStr, 2);
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >>> 4) & 0xF];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
         }
-        try {
-            String result = new String(bytes, StandardCharsets.UTF_8);
-            // Remove null padding
-            return result.replace("\0", "").trim();
-        } catch (Exception e) {
-            return "";
+        return new String(hex);
+    }
+    
+    /**
+     * Decodes hex ciphertext, left padding with zeros to a whole number of blocks
+     * @param hex Hex digits in either case
+     * @return The decoded bytes
+     */
+    public static byte[] fromHex(String hex) {
+        int blocks = (hex.length() + 15) / 16;
+        int pad = blocks * 16 - hex.length();
+        byte[] bytes = new byte[blocks * 8];
+        for (int i = 0; i < hex.length(); i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid hex digit in ciphertext: " + hex.charAt(i));
+            }
+            int pos = pad + i;
+            bytes[pos / 2] |= (byte) ((pos % 2 == 0) ? digit << 4 : digit);
         }
+        return bytes;
+    }
+    
+    /** Utility: convert bytes to UTF-8 string */
+    static String bytesToUTF(byte[] bytes) {
+        String result = new String(bytes, StandardCharsets.UTF_8);
+        // Remove null padding
+        return result.replace("\0", "").trim();
     }
  
     /** Decrypt ciphertext (hex) with key */
     @Override
     public String decrypt(String ciphertext, String key) {
-        String keyBin = keyStringTo64BitBinary(key);
-        buildKeySchedule(keyBin);
+        DESKeySchedule schedule = keySchedule(key);
         
-        String binCiphertext = hexToBin(ciphertext);
-        while (binCiphertext.length() % 64 != 0) binCiphertext = "0" + binCiphertext;
+        byte[] data = fromHex(ciphertext);
+        ecb(data, 0, data, 0, data.length, schedule, true, engine);
         
-        StringBuilder binPlaintext = new StringBuilder();
-        for (int i = 0; i < binCiphertext.length(); i += 64) {
-            String block = binCiphertext.substring(i, i + 64);
-            binPlaintext.append(decryptBlock(block));
+        return bytesToUTF(data);
+    }
+    
+    /**
+     * Decrypts bytes in ECB mode
+     * @param data The ciphertext bytes, a whole number of blocks
+     * @param key The key (first 8 bytes used)
+     * @return The plaintext bytes, including any zero padding
+     */
+    public byte[] decryptBytes(byte[] data, String key) {
+        byte[] out = new byte[data.length];
+        decryptBytes(data, 0, data.length, out, 0, key);
+        return out;
+    }
+    
+    /**
+     * Decrypts a region of a byte array in ECB mode into a caller-supplied buffer.
+     * The input and output regions may be the same.
+     * @param in The ciphertext array
+     * @param inOff Start of the ciphertext
+     * @param len Number of ciphertext bytes, a multiple of 8
+     * @param out The plaintext array, with room for len bytes
+     * @param outOff Where to start writing plaintext
+     * @param key The key (first 8 bytes used)
+     * @return Number of plaintext bytes written
+     */
+    public int decryptBytes(byte[] in, int inOff, int len, byte[] out, int outOff, String key) {
+        checkWholeBlocks(len);
+        Objects.checkFromIndexSize(inOff, len, in.length);
+        Objects.checkFromIndexSize(outOff, len, out.length);
+        ecb(in, inOff, out, outOff, len, keySchedule(key), true, engine);
+        return len;
+    }
+    
+    /**
+     * Decrypts the remaining bytes of a heap or direct buffer in ECB mode.
+     * Both buffers' positions are advanced.
+     * @param in The ciphertext, a multiple of 8 bytes
+     * @param out Receives in.remaining() plaintext bytes
+     * @param key The key (first 8 bytes used)
+     * @return Number of plaintext bytes written
+     */
+    public int decryptBytes(ByteBuffer in, ByteBuffer out, String key) {
+        checkWholeBlocks(in.remaining());
+        return ecb(in, out, keySchedule(key), true, engine);
+    }
+    
+    private static void checkWholeBlocks(int len) {
+        if (len % 8 != 0) {
+            throw new IllegalArgumentException("DES ciphertext must be a multiple of 8 bytes");
         }
-        
-        return binToUTF(binPlaintext.toString());
     }
     
-    /** Decrypt one block */
-    private String decryptBlock(String block) {
-        StringBuilder permuted = new StringBuilder();
-        for (int i : IP) permuted.append(block.charAt(i - 1));
-        
-        String L = permuted.substring(0, 32);
-        String R = permuted.substring(32);
+    /**
+     * ECB over len bytes of an array, zero padding a partial final block.
+     * Blocks are independent, so large inputs run in parallel and in == out is allowed.
+     */
+    static void ecb(byte[] in, int inOff, byte[] out, int outOff, int len, DESKeySchedule schedule,
+                    boolean decrypt, Engine engine) {
+        BlockRanges.forEach((len + 7) / 8, PARALLEL_BLOCK_THRESHOLD, (from, to) -> cryptRange(from, to,
+            b -> {
+                int pos = b * 8;
+                return pos + 8 <= len ? readBlock(in, inOff + pos) : readTail(in, inOff + pos, len - pos);
+            },
+            (b, block) -> writeBlock(block, out, outOff + b * 8),
+            schedule, decrypt, engine));
+    }
+    
+    /** ECB over the remaining bytes of a buffer; heap buffers go through the array path */
+    private static int ecb(ByteBuffer in, ByteBuffer out, DESKeySchedule schedule, boolean decrypt, Engine engine) {
+        int len = in.remaining();
+        int outLen = paddedLength(len);
+        if (out.remaining() < outLen) {
+            throw new BufferOverflowException();
+        }
+        if (out.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
         
-        // Decrypt uses keys in reverse order (K[16] down to K[1])
-        for (int round = 16; round >= 1; round--) {
-            String key = Long.toBinaryString(K[round]);
-            while (key.length() < 48) key = "0" + key;
-            
-            String fRes = f(R, key);
-            long fLong = Long.parseLong(fRes, 2);
-            long lLong = Long.parseLong(L, 2);
-            long newR = lLong ^ fLong;
-            
-            L = R;
-            R = String.format("%32s", Long.toBinaryString(newR)).replace(' ', '0');
+        if (in.hasArray() && out.hasArray()) {
+            ecb(in.array(), in.arrayOffset() + in.position(), out.array(), out.arrayOffset() + out.position(),
+                len, schedule, decrypt, engine);
+        } else {
+            // Absolute big-endian access, independent of the caller's byte order
+            ByteBuffer src = in.duplicate().order(ByteOrder.BIG_ENDIAN);
+            ByteBuffer dst = out.duplicate().order(ByteOrder.BIG_ENDIAN);
+            int inBase = in.position();
+            int outBase = out.position();
+            BlockRanges.forEach(outLen / 8, PARALLEL_BLOCK_THRESHOLD, (from, to) -> cryptRange(from, to,
+                b -> {
+                    int pos = b * 8;
+                    if (pos + 8 <= len) {
+                        return src.getLong(inBase + pos);
+                    }
+                    long block = 0;
+                    for (int i = 0; i < 8; i++) {
+                        block = (block << 8) | (pos + i < len ? src.get(inBase + pos + i) & 0xFF : 0);
+                    }
+                    return block;
+                },
+                (b, block) -> dst.putLong(outBase + b * 8, block),
+                schedule, decrypt, engine));
         }
         
-        String RL = R + L;
-        StringBuilder output = new StringBuilder();
-        for (int i : IPi) output.append(RL.charAt(i - 1));
-        return output.toString();
+        in.position(in.position() + len);
+        out.position(out.position() + outLen);
+        return outLen;
+    }
+    
+    /**
+     * Encrypts bytes in counter (CTR) mode. Keystream block i is the encryption of
+     * iv + i, so blocks are independent and large inputs are split across the
+     * common ForkJoinPool. No padding is needed: the output has the input's length.
+     * @param data The plaintext bytes
+     * @param key The key (first 8 bytes used)
+     * @param iv The initial 64-bit counter value; never reuse one with the same key
+     * @return The ciphertext bytes
+     */
+    public byte[] encryptCTR(byte[] data, String key, long iv) {
+        byte[] out = new byte[data.length];
+        ctr(data, 0, out, 0, data.length, keySchedule(key), iv, engine);
+        return out;
+    }
+    
+    /**
+     * Decrypts bytes in counter (CTR) mode; identical to encryption
+     * @param data The ciphertext bytes
+     * @param key The key (first 8 bytes used)
+     * @param iv The initial counter value used for encryption
+     * @return The plaintext bytes
+     */
+    public byte[] decryptCTR(byte[] data, String key, long iv) {
+        return encryptCTR(data, key, iv);
+    }
+    
+    /**
+     * XORs len bytes of input with the CTR keystream starting at counter.
+     * Input and output may be the same array region.
+     */
+    static void ctr(byte[] in, int inOff, byte[] out, int outOff, int len, DESKeySchedule schedule,
+                    long counter, Engine engine) {
+        BlockRanges.forEach((len + 7) / 8, PARALLEL_BLOCK_THRESHOLD, (from, to) -> cryptRange(from, to,
+            b -> counter + b,
+            (b, keystream) -> {
+                int pos = b * 8;
+                if (pos + 8 <= len) {
+                    writeBlock(readBlock(in, inOff + pos) ^ keystream, out, outOff + pos);
+                } else {
+                    // Partial final block
+                    for (int i = 0; pos + i < len; i++) {
+                        out[outOff + pos + i] = (byte) (in[inOff + pos + i] ^ (keystream >>> (56 - 8 * i)));
+                    }
+                }
+            },
+            schedule, false, engine));
+    }
+    
+    /** Supplies the input block with a given index */
+    interface BlockReader {
+        long read(int block);
+    }
+    
+    /** Consumes the output block with a given index */
+    interface BlockWriter {
+        void write(int block, long value);
+    }
+    
+    /**
+     * Runs blocks [from, to) through the selected engine. The bitsliced engine
+     * takes them in batches of 64, padding a short final batch with zero blocks.
+     */
+    static void cryptRange(int from, int to, BlockReader reader, BlockWriter writer,
+                           DESKeySchedule schedule, boolean decrypt, Engine engine) {
+        if (engine == Engine.BITSLICED) {
+            long[] batch = new long[BitslicedDES.LANES];
+            for (int b = from; b < to; b += BitslicedDES.LANES) {
+                int count = Math.min(BitslicedDES.LANES, to - b);
+                for (int i = 0; i < count; i++) {
+                    batch[i] = reader.read(b + i);
+                }
+                Arrays.fill(batch, count, BitslicedDES.LANES, 0L);
+                BitslicedDES.crypt(batch, schedule, decrypt);
+                for (int i = 0; i < count; i++) {
+                    writer.write(b + i, batch[i]);
+                }
+            }
+        } else {
+            for (int b = from; b < to; b++) {
+                writer.write(b, feistel(reader.read(b), schedule, decrypt));
+            }
+        }
+    }
+    
+    /**
+     * Encrypts bytes in cipher block chaining (CBC) mode. Each plaintext block is
+     * XORed with the previous ciphertext block (the IV for the first) before
+     * encryption, so this direction runs serially. The final block is zero padded
+     * as in encrypt().
+     * @param data The plaintext bytes
+     * @param key The key (first 8 bytes used)
+     * @param iv The 64-bit initialisation vector
+     * @return The ciphertext bytes, a whole number of blocks
+     */
+    public byte[] encryptCBC(byte[] data, String key, long iv) {
+        byte[] out = new byte[paddedLength(data.length)];
+        cbcEncrypt(data, 0, out, 0, data.length, keySchedule(key), iv);
+        return out;
+    }
+    
+    /**
+     * Decrypts bytes in CBC mode. Each plaintext block only needs its own and the
+     * previous ciphertext block, so large inputs are decrypted in parallel.
+     * @param data The ciphertext bytes, a whole number of blocks
+     * @param key The key (first 8 bytes used)
+     * @param iv The initialisation vector used for encryption
+     * @return The plaintext bytes, including any zero padding
+     */
+    public byte[] decryptCBC(byte[] data, String key, long iv) {
+        if (data.length % 8 != 0) {
+            throw new IllegalArgumentException("CBC ciphertext must be a multiple of 8 bytes");
+        }
+        byte[] out = new byte[data.length];
+        cbcDecrypt(data, 0, out, 0, data.length, keySchedule(key), iv);
+        return out;
+    }
+    
+    /**
+     * CBC-encrypts len bytes, zero padding the final block.
+     * @return The last ciphertext block, the chaining value for a following call
+     */
+    static long cbcEncrypt(byte[] in, int inOff, byte[] out, int outOff, int len, DESKeySchedule schedule, long iv) {
+        long previous = iv;
+        for (int pos = 0; pos < len; pos += 8) {
+            long block = pos + 8 <= len ? readBlock(in, inOff + pos) : readTail(in, inOff + pos, len - pos);
+            previous = encryptBlock(block ^ previous, schedule);
+            writeBlock(previous, out, outOff + pos);
+        }
+        return previous;
+    }
+    
+    /**
+     * CBC-decrypts len bytes (a multiple of 8). The output must not overlap the
+     * input, since blocks run out of order and read their predecessor's ciphertext.
+     * @return The last ciphertext block, the chaining value for a following call
+     */
+    static long cbcDecrypt(byte[] in, int inOff, byte[] out, int outOff, int len, DESKeySchedule schedule, long iv) {
+        BlockRanges.forEach(len / 8, PARALLEL_BLOCK_THRESHOLD, (from, to) -> {
+            long previous = from == 0 ? iv : readBlock(in, inOff + (from - 1) * 8);
+            for (int b = from; b < to; b++) {
+                long block = readBlock(in, inOff + b * 8);
+                writeBlock(decryptBlock(block, schedule) ^ previous, out, outOff + b * 8);
+                previous = block;
+            }
+        });
+        return len == 0 ? iv : readBlock(in, inOff + len - 8);
     }
     
     /** Display step-by-step encryption process */
@@ -367,6 +752,63 @@ public class DESCipher implements EncryptionAlgorithm {
         
         String decrypted = des.decrypt(ciphertext, key);
         System.out.println("Decrypted: " + decrypted);
+        
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        boolean consistent = stressTest(des, threads, 2000);
+        System.out.println("Shared instance under " + threads + " threads: " + (consistent ? "OK" : "FAILED"));
+    }
+    
+    /**
+     * Stress test: many threads encrypt and decrypt through one shared instance,
+     * each with its own key, and compare against single-threaded results.
+     * @param des The shared cipher
+     * @param threads Number of concurrent threads
+     * @param iterations Round trips per thread
+     * @return true if every result matched
+     */
+    static boolean stressTest(DESCipher des, int threads, int iterations) {
+        String[] keys = new String[threads];
+        String[] plaintexts = new String[threads];
+        String[] expected = new String[threads];
+        for (int t = 0; t < threads; t++) {
+            keys[t] = "KEY" + t + "XYZW";
+            plaintexts[t] = "Thread " + t + " plaintext block";
+            expected[t] = des.encrypt(plaintexts[t], keys[t]);
+        }
+        
+        AtomicBoolean consistent = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < iterations && consistent.get(); i++) {
+                    String ciphertext = des.encrypt(plaintexts[id], keys[id]);
+                    if (!ciphertext.equals(expected[id])
+                            || !des.decrypt(ciphertext, keys[id]).equals(plaintexts[id])) {
+                        consistent.set(false);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        
+        start.countDown();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return consistent.get();
     }
 }
  
\ No newline at end of file
@@ -0,0 +1,38 @@
+/**
+ * Immutable DES key schedule: the sixteen 48-bit round subkeys derived from one 64-bit key.
+ * Built by DESCipher and cached per key, so it can be shared freely between threads.
+ */
+public final class DESKeySchedule {
+    
+    private final long key;
+    
+    // Read directly by DESCipher's round loop; never modified after construction
+    final long[] subkeys;
+    
+    /**
+     * @param key The 64-bit key the schedule was derived from
+     * @param subkeys Subkeys for rounds 1 to 16 (index 0 is round 1)
+     */
+    DESKeySchedule(long key, long[] subkeys) {
+        if (subkeys.length != 16) {
+            throw new IllegalArgumentException("DES key schedule needs 16 subkeys");
+        }
+        this.key = key;
+        this.subkeys = subkeys.clone();
+    }
+    
+    /**
+     * @return The 64-bit key (8 key bytes, big-endian) this schedule was derived from
+     */
+    public long getKey() {
+        return key;
+    }
+    
+    /**
+     * @param round Round number from 1 to 16
+     * @return The 48-bit subkey for that round
+     */
+    public long subkey(int round) {
+        return subkeys[round - 1];
+    }
+}
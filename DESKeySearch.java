@@ -0,0 +1,213 @@
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Known-plaintext DES key search over a restricted keyspace (for training exercises).
+ * The keyspace is handed out to all cores in fixed-size chunks; each worker walks its
+ * chunk in odometer order, updating the key schedule incrementally, and all workers
+ * stop as soon as one finds a key that maps every known plaintext block to its
+ * ciphertext block.
+ *
+ * DES ignores the lowest bit of every key byte, so characters that differ only in
+ * that bit (such as '@' and 'A') give the same key, and whichever equivalent
+ * key a worker reaches first is reported.
+ */
+public class DESKeySearch {
+
+    /** Keys per chunk handed to a worker */
+    private static final long CHUNK_SIZE = 1 << 16;
+
+    /** Workers check for another worker's match every 4096 keys */
+    private static final long STOP_CHECK_MASK = 4095;
+
+    /**
+     * Outcome of a search
+     */
+    public static final class Result {
+        private final String key;
+        private final long keysTested;
+        private final long elapsedNanos;
+
+        Result(String key, long keysTested, long elapsedNanos) {
+            this.key = key;
+            this.keysTested = keysTested;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return true if a matching key was found
+         */
+        public boolean isFound() {
+            return key != null;
+        }
+
+        /**
+         * @return The matching key, or null if none was found
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return Number of keys tried across all workers
+         */
+        public long getKeysTested() {
+            return keysTested;
+        }
+
+        /**
+         * @return Wall-clock time of the search in milliseconds
+         */
+        public double getElapsedMillis() {
+            return elapsedNanos / 1e6;
+        }
+
+        /**
+         * @return Keys tried per second of wall-clock time
+         */
+        public double getKeysPerSecond() {
+            return elapsedNanos == 0 ? 0 : keysTested * 1e9 / elapsedNanos;
+        }
+    }
+
+    private final DESKeySpace keySpace;
+    private final int threads;
+
+    /**
+     * Creates a search that uses every available core
+     * @param keySpace The keys to try
+     */
+    public DESKeySearch(DESKeySpace keySpace) {
+        this(keySpace, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a search
+     * @param keySpace The keys to try
+     * @param threads Number of worker threads
+     */
+    public DESKeySearch(DESKeySpace keySpace, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.keySpace = keySpace;
+        this.threads = threads;
+    }
+
+    /**
+     * Searches for the key of a DESCipher.encrypt result
+     * @param plaintext The known plaintext
+     * @param ciphertextHex The ciphertext in hex, as returned by DESCipher.encrypt
+     * @return The search result
+     */
+    public Result search(String plaintext, String ciphertextHex) {
+        byte[] plain = plaintext.getBytes(StandardCharsets.UTF_8);
+        byte[] padded = new byte[DESCipher.paddedLength(plain.length)];
+        System.arraycopy(plain, 0, padded, 0, plain.length);
+        return search(padded, DESCipher.fromHex(ciphertextHex));
+    }
+
+    /**
+     * Searches for a key that encrypts each plaintext block to the matching ciphertext block (ECB).
+     * If the calling thread is interrupted, the workers are stopped and joined, the interrupt
+     * status is kept and the result covers the keys tested until then.
+     * @param plaintext Known plaintext, a whole number of blocks
+     * @param ciphertext The corresponding ciphertext, same length
+     * @return The search result
+     */
+    public Result search(byte[] plaintext, byte[] ciphertext) {
+        if (plaintext.length == 0 || plaintext.length % 8 != 0 || plaintext.length != ciphertext.length) {
+            throw new IllegalArgumentException("Plaintext and ciphertext must be the same whole number of blocks");
+        }
+
+        // Compare pre-output values: IP(plaintext) goes in, IP(ciphertext) must come out of the rounds
+        int blocks = plaintext.length / 8;
+        long[] inputs = new long[blocks];
+        long[] targets = new long[blocks];
+        for (int i = 0; i < blocks; i++) {
+            inputs[i] = DESCipher.initialPermutation(DESCipher.readBlock(plaintext, i * 8));
+            targets[i] = DESCipher.initialPermutation(DESCipher.readBlock(ciphertext, i * 8));
+        }
+
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong tested = new AtomicLong();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<String> found = new AtomicReference<>();
+
+        long start = System.nanoTime();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> searchChunks(inputs, targets, nextChunk, tested, stop, found),
+                "des-key-search-" + t);
+            workers[t].start();
+        }
+
+        // An interrupt stops the search early; the result then covers the keys tested so far
+        Workers.joinAll(workers, () -> stop.set(true));
+
+        return new Result(found.get(), tested.get(), System.nanoTime() - start);
+    }
+
+    /** Worker loop: claims chunks until the keyspace is exhausted or a key is found */
+    private void searchChunks(long[] inputs, long[] targets, AtomicLong nextChunk, AtomicLong tested,
+                              AtomicBoolean stop, AtomicReference<String> found) {
+        int[] digits = new int[keySpace.getLength()];
+        long[] subkeys = new long[16];
+        long first = inputs[0];
+        long target = targets[0];
+
+        while (!stop.get()) {
+            long from = nextChunk.getAndAdd(CHUNK_SIZE);
+            if (from >= keySpace.size()) {
+                return;
+            }
+            long to = Math.min(from + CHUNK_SIZE, keySpace.size());
+
+            keySpace.digitsAt(from, digits);
+            keySpace.subkeys(digits, subkeys);
+            for (long index = from; index < to; index++) {
+                if (((index - from) & STOP_CHECK_MASK) == 0 && stop.get()) {
+                    tested.addAndGet(index - from);
+                    return;
+                }
+                if (DESCipher.rounds(first, subkeys, false) == target && matchesAll(inputs, targets, subkeys)) {
+                    if (found.compareAndSet(null, keySpace.keyAt(index))) {
+                        stop.set(true);
+                    }
+                    tested.addAndGet(index - from + 1);
+                    return;
+                }
+                if (index + 1 < to) {
+                    keySpace.next(digits, subkeys);
+                }
+            }
+            tested.addAndGet(to - from);
+        }
+    }
+
+    private static boolean matchesAll(long[] inputs, long[] targets, long[] subkeys) {
+        for (int i = 1; i < inputs.length; i++) {
+            if (DESCipher.rounds(inputs[i], subkeys, false) != targets[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Demo: recover a 5-digit key from one known block */
+    public static void main(String[] args) {
+        DESCipher des = new DESCipher();
+        String plaintext = "ABDULLAH";
+        String ciphertext = des.encrypt(plaintext, "73105");
+
+        DESKeySpace keySpace = new DESKeySpace("0123456789", 5);
+        Result result = new DESKeySearch(keySpace).search(plaintext, ciphertext);
+
+        System.out.println("Keyspace size: " + keySpace.size());
+        System.out.println("Found key: " + (result.isFound() ? result.getKey() : "none"));
+        System.out.println(String.format("Tested %d keys in %.1f ms (%.0f keys/s)",
+            result.getKeysTested(), result.getElapsedMillis(), result.getKeysPerSecond()));
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.Arrays;
+
+/**
+ * A restricted DES keyspace: every key of a fixed length drawn from a small ASCII
+ * alphabet (zero padded to 8 bytes, as DESCipher does). Keys are numbered in
+ * odometer order with the last character changing fastest.
+ *
+ * The DES key schedule only selects and moves key bits, so the 16 subkeys of a key
+ * are the XOR of the subkeys of each key byte on its own. Those per-position,
+ * per-character contributions are precomputed, which lets searches update a
+ * schedule with a few XORs when one character changes instead of rebuilding it.
+ */
+public final class DESKeySpace {
+
+    private final String alphabet;
+    private final int length;
+    private final long size;
+
+    // contributions[((position * alphabetSize) + symbol) * 16 + i] is subkey i of that byte alone
+    private final long[] contributions;
+
+    /**
+     * Creates a keyspace
+     * @param alphabet The distinct ASCII characters keys are drawn from
+     * @param length Number of key characters, 1 to 8
+     */
+    public DESKeySpace(String alphabet, int length) {
+        if (length < 1 || length > 8) {
+            throw new IllegalArgumentException("Key length must be between 1 and 8 characters");
+        }
+        if (alphabet.isEmpty()) {
+            throw new IllegalArgumentException("Alphabet cannot be empty");
+        }
+        for (int i = 0; i < alphabet.length(); i++) {
+            char c = alphabet.charAt(i);
+            if (c == 0 || c > 127) {
+                throw new IllegalArgumentException("Alphabet must contain only non-NUL ASCII characters");
+            }
+            if (alphabet.indexOf(c, i + 1) >= 0) {
+                throw new IllegalArgumentException("Alphabet contains duplicate character: " + c);
+            }
+        }
+
+        long total = 1;
+        for (int i = 0; i < length; i++) {
+            total = Math.multiplyExact(total, alphabet.length());
+        }
+
+        this.alphabet = alphabet;
+        this.length = length;
+        this.size = total;
+
+        int symbols = alphabet.length();
+        this.contributions = new long[length * symbols * 16];
+        for (int position = 0; position < length; position++) {
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                long keyBlock = (long) alphabet.charAt(symbol) << (56 - 8 * position);
+                DESKeySchedule schedule = DESCipher.buildKeySchedule(keyBlock);
+                System.arraycopy(schedule.subkeys, 0, contributions, (position * symbols + symbol) * 16, 16);
+            }
+        }
+    }
+
+    /**
+     * @return The characters keys are drawn from
+     */
+    public String getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * @return Number of characters per key
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return Number of keys in the space
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @param index A key number from 0 to size() - 1
+     * @return The key string with that number
+     */
+    public String keyAt(long index) {
+        int[] digits = new int[length];
+        digitsAt(index, digits);
+        char[] key = new char[length];
+        for (int i = 0; i < length; i++) {
+            key[i] = alphabet.charAt(digits[i]);
+        }
+        return new String(key);
+    }
+
+    /**
+     * Fills digits with the alphabet indices of key number index
+     */
+    void digitsAt(long index, int[] digits) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Key index " + index + " outside keyspace of " + size);
+        }
+        int base = alphabet.length();
+        for (int position = length - 1; position >= 0; position--) {
+            digits[position] = (int) (index % base);
+            index /= base;
+        }
+    }
+
+    /**
+     * Writes the 16 subkeys (index 0 is round 1) of the key with these digits
+     */
+    void subkeys(int[] digits, long[] subkeys) {
+        Arrays.fill(subkeys, 0L);
+        for (int position = 0; position < length; position++) {
+            replace(subkeys, position, 0, digits[position], false);
+        }
+    }
+
+    /**
+     * Updates subkeys in place for one character changing from oldSymbol to newSymbol
+     */
+    void replace(long[] subkeys, int position, int oldSymbol, int newSymbol) {
+        replace(subkeys, position, oldSymbol, newSymbol, true);
+    }
+
+    private void replace(long[] subkeys, int position, int oldSymbol, int newSymbol, boolean removeOld) {
+        int symbols = alphabet.length();
+        int oldBase = (position * symbols + oldSymbol) * 16;
+        int newBase = (position * symbols + newSymbol) * 16;
+        for (int i = 0; i < 16; i++) {
+            long delta = contributions[newBase + i];
+            if (removeOld) {
+                delta ^= contributions[oldBase + i];
+            }
+            subkeys[i] ^= delta;
+        }
+    }
+
+    /**
+     * Advances digits and subkeys to the next key in odometer order
+     * @return false if digits was the last key (digits wrap to the first key)
+     */
+    boolean next(int[] digits, long[] subkeys) {
+        int base = alphabet.length();
+        for (int position = length - 1; position >= 0; position--) {
+            int old = digits[position];
+            int updated = old + 1 == base ? 0 : old + 1;
+            digits[position] = updated;
+            replace(subkeys, position, old, updated);
+            if (updated != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
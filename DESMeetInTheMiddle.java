@@ -0,0 +1,407 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Meet-in-the-middle attack on Double DES over restricted keyspaces (for training exercises).
+ * Every K1 encrypts the known plaintext and the intermediate value is stored in an
+ * off-heap hash table; every K2 then decrypts the known ciphertext in parallel and looks
+ * its intermediate value up. The cost is about |K1| + |K2| DES operations instead of
+ * |K1| x |K2|, which is why Double DES is barely stronger than DES.
+ *
+ * Intermediate values are compared in the IP-permuted domain: IP^-1 after the first
+ * encryption and IP before the second cancel out, so no permutations run per key.
+ */
+public class DESMeetInTheMiddle {
+
+    /** Keys per chunk handed to a worker */
+    private static final long CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Outcome of an attack
+     */
+    public static final class Result {
+        private final String key1;
+        private final String key2;
+        private final long tableEntries;
+        private final long tableBytes;
+        private final long candidates;
+        private final long buildNanos;
+        private final long probeNanos;
+
+        Result(String key1, String key2, long tableEntries, long tableBytes, long candidates,
+               long buildNanos, long probeNanos) {
+            this.key1 = key1;
+            this.key2 = key2;
+            this.tableEntries = tableEntries;
+            this.tableBytes = tableBytes;
+            this.candidates = candidates;
+            this.buildNanos = buildNanos;
+            this.probeNanos = probeNanos;
+        }
+
+        /**
+         * @return true if a key pair matching every known block was found
+         */
+        public boolean isFound() {
+            return key1 != null;
+        }
+
+        /**
+         * @return The recovered first key, or null
+         */
+        public String getKey1() {
+            return key1;
+        }
+
+        /**
+         * @return The recovered second key, or null
+         */
+        public String getKey2() {
+            return key2;
+        }
+
+        /**
+         * @return The recovered key in DoubleDESCipher's "key1|key2" format, or null
+         */
+        public String getCombinedKey() {
+            return isFound() ? key1 + "|" + key2 : null;
+        }
+
+        /**
+         * @return Number of intermediate values stored in the table
+         */
+        public long getTableEntries() {
+            return tableEntries;
+        }
+
+        /**
+         * @return Off-heap memory used by the table in bytes
+         */
+        public long getTableBytes() {
+            return tableBytes;
+        }
+
+        /**
+         * @return Number of (K1, K2) pairs whose intermediate values matched on the first block
+         */
+        public long getCandidates() {
+            return candidates;
+        }
+
+        /**
+         * @return Time spent encrypting with every K1 and filling the table, in milliseconds
+         */
+        public double getBuildMillis() {
+            return buildNanos / 1e6;
+        }
+
+        /**
+         * @return Time spent decrypting with K2 values and probing the table, in milliseconds
+         */
+        public double getProbeMillis() {
+            return probeNanos / 1e6;
+        }
+    }
+
+    private final DESKeySpace keySpace1;
+    private final DESKeySpace keySpace2;
+    private final int threads;
+
+    /**
+     * Creates an attack that uses every available core
+     * @param keySpace1 Candidates for the first key
+     * @param keySpace2 Candidates for the second key
+     */
+    public DESMeetInTheMiddle(DESKeySpace keySpace1, DESKeySpace keySpace2) {
+        this(keySpace1, keySpace2, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an attack
+     * @param keySpace1 Candidates for the first key (at most MiddleTable.MAX_ENTRIES keys)
+     * @param keySpace2 Candidates for the second key
+     * @param threads Number of worker threads
+     */
+    public DESMeetInTheMiddle(DESKeySpace keySpace1, DESKeySpace keySpace2, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        if (keySpace1.size() > MiddleTable.MAX_ENTRIES) {
+            throw new IllegalArgumentException("First keyspace is larger than the table limit of "
+                + MiddleTable.MAX_ENTRIES + " keys");
+        }
+        this.keySpace1 = keySpace1;
+        this.keySpace2 = keySpace2;
+        this.threads = threads;
+    }
+
+    /**
+     * Attacks a DoubleDESCipher.encrypt result
+     * @param plaintext The known plaintext
+     * @param ciphertextHex The ciphertext in hex
+     * @return The attack result
+     */
+    public Result attack(String plaintext, String ciphertextHex) {
+        byte[] plain = plaintext.getBytes(StandardCharsets.UTF_8);
+        byte[] padded = new byte[DESCipher.paddedLength(plain.length)];
+        System.arraycopy(plain, 0, padded, 0, plain.length);
+        return attack(padded, DESCipher.fromHex(ciphertextHex));
+    }
+
+    /**
+     * Attacks known plaintext/ciphertext blocks (ECB). The first block drives the
+     * table; any further blocks weed out false matches, so two or more are advisable
+     * for large keyspaces. An interrupt of the calling thread does not end the attack
+     * early; it runs to completion and the interrupt status is kept.
+     * @param plaintext Known plaintext, a whole number of blocks
+     * @param ciphertext The corresponding ciphertext, same length
+     * @return The attack result
+     */
+    public Result attack(byte[] plaintext, byte[] ciphertext) {
+        if (plaintext.length == 0 || plaintext.length % 8 != 0 || plaintext.length != ciphertext.length) {
+            throw new IllegalArgumentException("Plaintext and ciphertext must be the same whole number of blocks");
+        }
+
+        int blocks = plaintext.length / 8;
+        long[] inputs = new long[blocks];
+        long[] outputs = new long[blocks];
+        for (int i = 0; i < blocks; i++) {
+            inputs[i] = DESCipher.initialPermutation(DESCipher.readBlock(plaintext, i * 8));
+            outputs[i] = DESCipher.initialPermutation(DESCipher.readBlock(ciphertext, i * 8));
+        }
+
+        MiddleTable table = new MiddleTable(keySpace1.size());
+
+        long buildStart = System.nanoTime();
+        AtomicLong nextChunk = new AtomicLong();
+        runWorkers(() -> buildChunks(inputs[0], table, nextChunk));
+        long buildNanos = System.nanoTime() - buildStart;
+
+        long probeStart = System.nanoTime();
+        AtomicLong probeChunk = new AtomicLong();
+        AtomicLong candidates = new AtomicLong();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<long[]> found = new AtomicReference<>();
+        runWorkers(() -> probeChunks(inputs, outputs, table, probeChunk, candidates, stop, found));
+        long probeNanos = System.nanoTime() - probeStart;
+
+        long[] keys = found.get();
+        return new Result(
+            keys == null ? null : keySpace1.keyAt(keys[0]),
+            keys == null ? null : keySpace2.keyAt(keys[1]),
+            table.size(), table.bytes(), candidates.get(), buildNanos, probeNanos);
+    }
+
+    private void runWorkers(Runnable work) {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(work, "des-mitm-" + t);
+            workers[t].start();
+        }
+        // The probe phase needs the whole table, so an interrupt does not cut either phase short
+        Workers.joinAll(workers, null);
+    }
+
+    /**
+     * Encrypts the first plaintext block under a chunk of K1 values at a time,
+     * then inserts the chunk under the table lock (the DES work dominates)
+     */
+    private void buildChunks(long input, MiddleTable table, AtomicLong nextChunk) {
+        int[] digits = new int[keySpace1.getLength()];
+        long[] subkeys = new long[16];
+        long[] middles = new long[(int) CHUNK_SIZE];
+
+        while (true) {
+            long from = nextChunk.getAndAdd(CHUNK_SIZE);
+            if (from >= keySpace1.size()) {
+                return;
+            }
+            int count = (int) Math.min(CHUNK_SIZE, keySpace1.size() - from);
+
+            keySpace1.digitsAt(from, digits);
+            keySpace1.subkeys(digits, subkeys);
+            for (int i = 0; i < count; i++) {
+                middles[i] = DESCipher.rounds(input, subkeys, false);
+                if (i + 1 < count) {
+                    keySpace1.next(digits, subkeys);
+                }
+            }
+
+            synchronized (table) {
+                for (int i = 0; i < count; i++) {
+                    table.put(middles[i], (int) (from + i));
+                }
+            }
+        }
+    }
+
+    /** Decrypts the first ciphertext block under chunks of K2 values and probes the table */
+    private void probeChunks(long[] inputs, long[] outputs, MiddleTable table, AtomicLong nextChunk,
+                             AtomicLong candidates, AtomicBoolean stop, AtomicReference<long[]> found) {
+        int[] digits = new int[keySpace2.getLength()];
+        long[] subkeys = new long[16];
+        int[] digits1 = new int[keySpace1.getLength()];
+        long[] subkeys1 = new long[16];
+
+        while (!stop.get()) {
+            long from = nextChunk.getAndAdd(CHUNK_SIZE);
+            if (from >= keySpace2.size()) {
+                return;
+            }
+            long to = Math.min(from + CHUNK_SIZE, keySpace2.size());
+
+            keySpace2.digitsAt(from, digits);
+            keySpace2.subkeys(digits, subkeys);
+            for (long index = from; index < to && !stop.get(); index++) {
+                long middle = DESCipher.rounds(outputs[0], subkeys, true);
+
+                for (int slot = table.firstSlot(middle); slot >= 0; slot = table.nextSlot(middle, slot)) {
+                    candidates.incrementAndGet();
+                    int key1 = table.keyAt(slot);
+                    keySpace1.digitsAt(key1, digits1);
+                    keySpace1.subkeys(digits1, subkeys1);
+                    if (matchesAll(inputs, outputs, subkeys1, subkeys)
+                            && found.compareAndSet(null, new long[]{key1, index})) {
+                        stop.set(true);
+                        return;
+                    }
+                }
+
+                if (index + 1 < to) {
+                    keySpace2.next(digits, subkeys);
+                }
+            }
+        }
+    }
+
+    private static boolean matchesAll(long[] inputs, long[] outputs, long[] subkeys1, long[] subkeys2) {
+        for (int i = 1; i < inputs.length; i++) {
+            long middle = DESCipher.rounds(inputs[i], subkeys1, false);
+            if (DESCipher.rounds(middle, subkeys2, false) != outputs[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Open-addressing hash multimap from 64-bit intermediate values to key indices,
+     * held in a direct ByteBuffer so tens of millions of entries stay off the heap.
+     * Each 12-byte slot is the value followed by (key index + 1); 0 marks an empty slot.
+     * Linear probing; lookups visit every slot holding the value, since equivalent
+     * DES keys produce duplicate values. Inserts must be externally synchronized;
+     * lookups may run concurrently once filling is done.
+     */
+    static final class MiddleTable {
+
+        private static final int SLOT_BYTES = 12;
+
+        /** Largest power-of-two slot count that fits one direct buffer */
+        private static final int MAX_SLOTS = 1 << 27;
+
+        /** Most entries a table can hold (75% load at MAX_SLOTS) */
+        static final long MAX_ENTRIES = MAX_SLOTS / 4 * 3;
+
+        private final ByteBuffer slots;
+        private final int mask;
+        private long size;
+
+        /**
+         * @param expectedEntries Number of entries that will be inserted
+         */
+        MiddleTable(long expectedEntries) {
+            if (expectedEntries > MAX_ENTRIES) {
+                throw new IllegalArgumentException("Table cannot hold " + expectedEntries + " entries");
+            }
+            // Power of two with load factor at most 0.75
+            long wanted = Math.max(16, (expectedEntries * 4 + 2) / 3);
+            int capacity = Integer.highestOneBit((int) Math.min(MAX_SLOTS, wanted - 1)) << 1;
+            capacity = Math.min(capacity, MAX_SLOTS);
+            this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            this.mask = capacity - 1;
+        }
+
+        /** Murmur3 finalizer; intermediate values are already well mixed but this is cheap insurance */
+        private static int hash(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            return (int) value;
+        }
+
+        void put(long value, int keyIndex) {
+            if (size >= (mask + 1L) / 4 * 3) {
+                throw new IllegalStateException("Table is full");
+            }
+            int slot = hash(value) & mask;
+            while (slots.getInt(slot * SLOT_BYTES + 8) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots.putLong(slot * SLOT_BYTES, value);
+            slots.putInt(slot * SLOT_BYTES + 8, keyIndex + 1);
+            size++;
+        }
+
+        /**
+         * @return The first slot holding value, or -1 if there is none
+         */
+        int firstSlot(long value) {
+            return scan(value, hash(value) & mask);
+        }
+
+        /**
+         * @return The next slot after slot holding value, or -1 if there is none
+         */
+        int nextSlot(long value, int slot) {
+            return scan(value, (slot + 1) & mask);
+        }
+
+        private int scan(long value, int slot) {
+            while (true) {
+                int stored = slots.getInt(slot * SLOT_BYTES + 8);
+                if (stored == 0) {
+                    return -1;
+                }
+                if (slots.getLong(slot * SLOT_BYTES) == value) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        /**
+         * @return The key index stored in an occupied slot
+         */
+        int keyAt(int slot) {
+            return slots.getInt(slot * SLOT_BYTES + 8) - 1;
+        }
+
+        long size() {
+            return size;
+        }
+
+        long bytes() {
+            return (long) slots.capacity();
+        }
+    }
+
+    /** Demo: recover two 4-digit keys from two known blocks */
+    public static void main(String[] args) {
+        DoubleDESCipher doubleDes = new DoubleDESCipher();
+        String plaintext = "MEETMEATMIDNIGHT";
+        String ciphertext = doubleDes.encrypt(plaintext, "4821|0937");
+
+        DESKeySpace keySpace = new DESKeySpace("0123456789", 4);
+        Result result = new DESMeetInTheMiddle(keySpace, keySpace).attack(plaintext, ciphertext);
+
+        System.out.println("Keyspace size per key: " + keySpace.size());
+        System.out.println("Recovered key: " + (result.isFound() ? result.getCombinedKey() : "none"));
+        System.out.println(String.format("Table: %d entries, %d bytes off-heap; %d candidate pairs checked",
+            result.getTableEntries(), result.getTableBytes(), result.getCandidates()));
+        System.out.println(String.format("Build %.1f ms, probe %.1f ms", result.getBuildMillis(), result.getProbeMillis()));
+    }
+}
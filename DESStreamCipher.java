@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming DES encryption/decryption over InputStream/OutputStream, channels and
+ * memory-mapped files. Input is processed through two fixed-size buffers, so memory
+ * use does not grow with input size. Each call keeps its own chaining state, so one
+ * instance can be reused and shared between threads.
+ */
+public class DESStreamCipher {
+
+    /** Block cipher mode used for the stream */
+    public enum Mode {
+        /** Independent blocks; the final block is zero padded as in DESCipher.encrypt */
+        ECB,
+        /** Cipher block chaining from the IV; the final block is zero padded */
+        CBC,
+        /** Counter mode from the IV; output has the same length as input */
+        CTR
+    }
+
+    /** Default buffer size in bytes (a multiple of the 8-byte block size) */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** Size of each memory-mapped window of an input file */
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    private final DESKeySchedule schedule;
+    private final DESCipher.Engine engine;
+    private final Mode mode;
+    private final long iv;
+    private final int bufferSize;
+
+    /**
+     * Creates a stream cipher with the default buffer size
+     * @param cipher The cipher whose key-schedule cache is used
+     * @param key The key (first 8 bytes used)
+     * @param mode The block cipher mode
+     * @param iv The IV (CBC) or initial counter (CTR); ignored for ECB
+     */
+    public DESStreamCipher(DESCipher cipher, String key, Mode mode, long iv) {
+        this(cipher, key, mode, iv, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a stream cipher
+     * @param cipher The cipher whose key-schedule cache is used
+     * @param key The key (first 8 bytes used)
+     * @param mode The block cipher mode
+     * @param iv The IV (CBC) or initial counter (CTR); ignored for ECB
+     * @param bufferSize Bytes processed per chunk, a positive multiple of 8
+     */
+    public DESStreamCipher(DESCipher cipher, String key, Mode mode, long iv, int bufferSize) {
+        if (bufferSize <= 0 || bufferSize % 8 != 0) {
+            throw new IllegalArgumentException("Buffer size must be a positive multiple of 8");
+        }
+        this.schedule = cipher.keySchedule(key);
+        this.engine = cipher.getEngine();
+        this.mode = mode;
+        this.iv = iv;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Encrypts a stream until end of input. Streams are not closed.
+     * @param in The plaintext source
+     * @param out The ciphertext destination
+     * @return Number of ciphertext bytes written
+     * @throws IOException If reading or writing fails
+     */
+    public long encrypt(InputStream in, OutputStream out) throws IOException {
+        return run(in::readNBytes, out::write, false);
+    }
+
+    /**
+     * Decrypts a stream until end of input. Streams are not closed.
+     * @param in The ciphertext source
+     * @param out The plaintext destination (ECB/CBC output keeps the zero padding)
+     * @return Number of plaintext bytes written
+     * @throws IOException If reading or writing fails, or ECB/CBC input is not whole blocks
+     */
+    public long decrypt(InputStream in, OutputStream out) throws IOException {
+        return run(in::readNBytes, out::write, true);
+    }
+
+    /**
+     * Encrypts a channel until end of input. Channels are not closed and must be in
+     * blocking mode, since a read or write that transfers nothing is retried.
+     * @param in The plaintext source
+     * @param out The ciphertext destination
+     * @return Number of ciphertext bytes written
+     * @throws IOException If reading or writing fails
+     * @throws IllegalArgumentException If either channel is in non-blocking mode
+     */
+    public long encrypt(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        return run(channelSource(in), channelSink(out), false);
+    }
+
+    /**
+     * Decrypts a channel until end of input. Channels are not closed and must be in
+     * blocking mode, since a read or write that transfers nothing is retried.
+     * @param in The ciphertext source
+     * @param out The plaintext destination (ECB/CBC output keeps the zero padding)
+     * @return Number of plaintext bytes written
+     * @throws IOException If reading or writing fails, or ECB/CBC input is not whole blocks
+     * @throws IllegalArgumentException If either channel is in non-blocking mode
+     */
+    public long decrypt(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        return run(channelSource(in), channelSink(out), true);
+    }
+
+    /**
+     * Encrypts a file, reading it through memory-mapped windows
+     * @param source The plaintext file
+     * @param target The ciphertext file (created or truncated)
+     * @return Number of ciphertext bytes written
+     * @throws IOException If reading or writing fails
+     */
+    public long encryptFile(Path source, Path target) throws IOException {
+        return runFile(source, target, false);
+    }
+
+    /**
+     * Decrypts a file, reading it through memory-mapped windows
+     * @param source The ciphertext file
+     * @param target The plaintext file (created or truncated)
+     * @return Number of plaintext bytes written
+     * @throws IOException If reading or writing fails, or ECB/CBC input is not whole blocks
+     */
+    public long decryptFile(Path source, Path target) throws IOException {
+        return runFile(source, target, true);
+    }
+
+    /** Fills a buffer from the start; returns fewer bytes than its length only at end of input */
+    private interface ChunkSource {
+        int read(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    /** Receives processed bytes */
+    private interface ChunkSink {
+        void write(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    /**
+     * Processes the source chunk by chunk. Every chunk but the last is a whole
+     * number of blocks, so the chaining value or counter carries over exactly.
+     */
+    private long run(ChunkSource source, ChunkSink sink, boolean decrypt) throws IOException {
+        byte[] in = new byte[bufferSize];
+        byte[] out = new byte[bufferSize];
+        long chain = iv;
+        long total = 0;
+
+        while (true) {
+            int n = source.read(in, 0, in.length);
+            if (n <= 0) {
+                break;
+            }
+            if (decrypt && mode != Mode.CTR && n % 8 != 0) {
+                throw new IOException("DES ciphertext is not a multiple of 8 bytes");
+            }
+
+            int outLen;
+            switch (mode) {
+                case ECB:
+                    DESCipher.ecb(in, 0, out, 0, n, schedule, decrypt, engine);
+                    outLen = DESCipher.paddedLength(n);
+                    break;
+                case CBC:
+                    chain = decrypt
+                        ? DESCipher.cbcDecrypt(in, 0, out, 0, n, schedule, chain)
+                        : DESCipher.cbcEncrypt(in, 0, out, 0, n, schedule, chain);
+                    outLen = DESCipher.paddedLength(n);
+                    break;
+                default:
+                    DESCipher.ctr(in, 0, out, 0, n, schedule, chain, engine);
+                    chain += n / 8;
+                    outLen = n;
+            }
+
+            sink.write(out, 0, outLen);
+            total += outLen;
+
+            if (n < in.length) {
+                break;
+            }
+        }
+
+        return total;
+    }
+
+    /** Maps the source file window by window and writes through the target channel */
+    private long runFile(Path source, Path target, boolean decrypt) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = in.size();
+            long[] mapped = {0};
+            MappedByteBuffer[] window = {null};
+
+            ChunkSource mappedSource = (buffer, offset, length) -> {
+                int filled = 0;
+                while (filled < length) {
+                    if (window[0] == null || !window[0].hasRemaining()) {
+                        if (mapped[0] >= size) {
+                            break;
+                        }
+                        long windowSize = Math.min(MAP_WINDOW, size - mapped[0]);
+                        window[0] = in.map(FileChannel.MapMode.READ_ONLY, mapped[0], windowSize);
+                        mapped[0] += windowSize;
+                    }
+                    int count = Math.min(length - filled, window[0].remaining());
+                    window[0].get(buffer, offset + filled, count);
+                    filled += count;
+                }
+                return filled;
+            };
+
+            return run(mappedSource, channelSink(out), decrypt);
+        }
+    }
+
+    /** Rejects non-blocking channels, which would make the retry loops below spin */
+    private static void checkBlocking(Object channel) {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalArgumentException("Channel must be in blocking mode");
+        }
+    }
+
+    private static ChunkSource channelSource(ReadableByteChannel channel) {
+        checkBlocking(channel);
+        return (buffer, offset, length) -> {
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer, offset, length);
+            while (wrapped.hasRemaining()) {
+                if (channel.read(wrapped) < 0) {
+                    break;
+                }
+            }
+            return wrapped.position() - offset;
+        };
+    }
+
+    private static ChunkSink channelSink(WritableByteChannel channel) {
+        checkBlocking(channel);
+        return (buffer, offset, length) -> {
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer, offset, length);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * A few pages of plain English prose, the default corpus for NgramScorer.english.
+ * Enough to rank candidate decryptions of short training ciphertexts; load a proper
+ * n-gram counts file with NgramScorer.fromCounts for harder material.
+ */
+final class EnglishSample {
+
+    private EnglishSample() {
+    }
+
+    static final String TEXT =
+        "It was late in the autumn when the letter finally arrived at the house on the hill. "
+        + "Nobody in the family could remember who had written it, and for a long time it lay "
+        + "on the table in the front room while everyone found some reason not to open it. "
+        + "The paper was thick and yellow, the handwriting was small and careful, and the "
+        + "envelope carried a stamp from a country that none of them had ever visited. "
+        + "When at last the eldest daughter broke the seal, she read the first line aloud and "
+        + "then stopped, because the words made no sense at all. They were a jumble of letters "
+        + "with no spaces between them, and every few lines there was a number written in the "
+        + "margin. Her brother said that it must be a secret message, and their mother said "
+        + "that it was probably a joke. Their father said nothing, but that evening he took "
+        + "the letter into his study and did not come out again until long after midnight.\n"
+        + "The study of secret writing is very old. For as long as people have been able to "
+        + "write, they have wanted to hide what they wrote from the eyes of others. Generals "
+        + "needed to send orders that the enemy could not read, merchants wanted to protect "
+        + "their prices and their trade routes, and lovers wanted to keep their letters away "
+        + "from curious parents. The simplest methods replace each letter of the message with "
+        + "another letter, always following the same rule. A famous example moves every letter "
+        + "three places along the alphabet, so that the word attack becomes something that "
+        + "looks like nonsense to anyone who does not know the trick. Such a method is easy to "
+        + "use, but it is also easy to break, because the common letters of the language are "
+        + "still common after they have been replaced. In English the letter e appears more "
+        + "often than any other, followed by t, a, o, i and n, and a patient reader who counts "
+        + "the letters of a long message can usually guess which symbol stands for which.\n"
+        + "Later methods tried to hide these patterns. Some of them used a keyword to change the "
+        + "rule from one letter to the next, so that the same plain letter could turn into many "
+        + "different secret letters. Others worked on pairs of letters instead of single ones, "
+        + "or wrote the message into a grid and then read it out again in a different order. "
+        + "Each new method was thought to be unbreakable when it was first used, and each one "
+        + "was eventually broken by people who noticed that the structure of the language was "
+        + "still there, hidden beneath the surface, waiting for someone with enough time and "
+        + "enough curiosity to find it.\n"
+        + "The father in our story was such a person. He had always enjoyed puzzles, and in the "
+        + "quiet hours of the night he began to count the letters of the strange message and to "
+        + "write the totals on a sheet of paper. He noticed that some pairs of letters appeared "
+        + "again and again, and that certain groups of three or four letters were repeated at "
+        + "regular distances. He remembered reading that repeated groups often mean that the "
+        + "same word has been hidden with the same part of the key, and that the distance "
+        + "between them can tell you how long the key must be. By the time the sun came up he "
+        + "had a guess, and by the middle of the morning he had the first sentence.\n"
+        + "The message was from his grandfather, who had left the country many years before and "
+        + "who had never written to anyone in the family since. It told the story of a small "
+        + "farm near the sea, of a house built with his own hands, and of a garden where apple "
+        + "trees and roses grew side by side. It said that he was old now and that he would like "
+        + "to see his children and their children before the end of his life. At the bottom of "
+        + "the page there was an address and the name of a ship, and a date in the spring of the "
+        + "following year.\n"
+        + "There was a great deal of discussion in the house that winter. Some thought that the "
+        + "journey would be too long and too expensive, and others thought that it would be the "
+        + "adventure of a lifetime. The children spent the long evenings looking at maps and "
+        + "reading about the places they would pass on the way. They learned the names of the "
+        + "rivers and mountains, the price of bread in the towns along the coast, and a few words "
+        + "of the language that their great grandfather must have spoken every day for most of "
+        + "his life. Their mother made lists of everything they would need to take with them, and "
+        + "their father wrote a long reply, in plain English this time, which he sent away with "
+        + "the first post after the new year.\n"
+        + "In the spring they travelled by train to the port and then by ship across the water. "
+        + "The weather was kind to them for most of the way, although there was one night of "
+        + "wind and rain when the ship rolled so much that nobody was able to sleep. When they "
+        + "arrived, an old man with white hair and a straight back was waiting for them at the "
+        + "end of the harbour wall. He shook hands with each of them in turn and then, without a "
+        + "word, he led them along a narrow road between the fields to the house he had described "
+        + "in his letter. The apple trees were in flower and the garden smelled of salt and of "
+        + "earth that had just been turned.\n"
+        + "That evening, after supper, the old man explained why he had written in code. He had "
+        + "not been sure that the letter would reach the right people, he said, and he had not "
+        + "wanted strangers to read about his family and his farm. He had chosen a method that "
+        + "his own father had taught him when he was a boy, and he had hoped that someone in the "
+        + "family would remember enough of the old games to work it out. He was pleased that it "
+        + "had been his grandson who found the answer, and he asked to hear exactly how it had "
+        + "been done. So they sat together by the fire until late into the night, the old man "
+        + "and the younger one, talking about letters and numbers and keys, while the rest of the "
+        + "family listened and the wind moved gently in the trees outside the window.\n"
+        + "Many of the ideas they talked about that night are still in use today, although the "
+        + "machines that carry our messages work much faster than any person with a pencil. A "
+        + "modern computer can try millions of keys every second, and a method that would have "
+        + "kept a secret for a hundred years can now be broken before a cup of tea has gone cold. "
+        + "For that reason the methods that protect information today are built on mathematical "
+        + "problems that are believed to be very hard even for the fastest computers, and the "
+        + "keys that they use are long enough that nobody could ever try them all. Even so, the "
+        + "basic questions have not changed. How can two people share a secret when others are "
+        + "listening, how can they be sure that a message has not been changed on the way, and "
+        + "how can they know that it really came from the person whose name is written at the end?\n"
+        + "Learning the old methods is still a good way to begin. They show how a secret can be "
+        + "hidden and how it can be found again, and they teach the most important lesson of the "
+        + "whole subject, which is that the strength of a method depends on the size and the "
+        + "secrecy of its key and not on the hope that nobody will ever understand how it works.\n";
+}
@@ -0,0 +1,105 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded least-recently-used cache for compiled cipher keys.
+ * Safe to share between threads; hit and miss counters help size the capacity.
+ * @param <K> The raw key type
+ * @param <V> The compiled key type (should be immutable)
+ */
+public class KeyCache<K, V> {
+    
+    private final int capacity;
+    private final LinkedHashMap<K, V> entries;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    /**
+     * Creates an empty cache
+     * @param capacity Maximum number of compiled keys kept before the least recently used is evicted
+     */
+    public KeyCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        // Access order makes iteration order least-recently-used first
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > KeyCache.this.capacity;
+            }
+        };
+    }
+    
+    /**
+     * Returns the compiled value for a key, building and caching it on a miss
+     * @param key The raw key
+     * @param builder Compiles the key; called outside the lock, so it may run
+     *                more than once if several threads miss on the same key
+     * @return The cached or newly compiled value
+     */
+    public V get(K key, Function<? super K, ? extends V> builder) {
+        synchronized (entries) {
+            V cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        
+        misses.incrementAndGet();
+        V built = builder.apply(key);
+        
+        synchronized (entries) {
+            V raced = entries.putIfAbsent(key, built);
+            return raced != null ? raced : built;
+        }
+    }
+    
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+    
+    /**
+     * @return Number of lookups that had to compile the key
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    /**
+     * @return Number of compiled keys currently cached
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    /**
+     * @return Maximum number of compiled keys kept
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Removes all cached keys and resets the counters
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+}
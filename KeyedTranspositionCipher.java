@@ -1,165 +1,143 @@
+import java.util.Arrays;
+
 /**
  * Keyed Transposition Cipher Implementation
- * Uses a 2x5 permutation matrix where the first row represents plaintext indices
- * and the second row represents ciphertext positions (both 1-indexed)
+ * Uses a 2xn permutation matrix (any block width n) where the first
+ * row represents plaintext indices and the second row represents ciphertext
+ * positions (both 1-indexed)
  */
 public class KeyedTranspositionCipher implements EncryptionAlgorithm {
     
+    /** Number of compiled keys kept by the shared cache */
+    public static final int DEFAULT_CACHE_CAPACITY = 64;
+    
+    private static final KeyCache<String, TranspositionKey> SHARED_KEYS = new KeyCache<>(DEFAULT_CACHE_CAPACITY);
+    
+    private final KeyCache<String, TranspositionKey> keyCache;
+    
+    /** Creates a cipher that uses the shared compiled-key cache */
+    public KeyedTranspositionCipher() {
+        this.keyCache = SHARED_KEYS;
+    }
+    
     /**
-     * Encrypts plaintext using keyed transposition with 2x5 matrix
-     * @param plaintext The text to encrypt
+     * Creates a cipher with its own compiled-key cache
+     * @param cacheCapacity Number of compiled keys to keep
+     */
+    public KeyedTranspositionCipher(int cacheCapacity) {
+        this.keyCache = new KeyCache<>(cacheCapacity);
+    }
+    
+    /**
+     * @return The cache of compiled keys used by this cipher
+     */
+    public KeyCache<String, TranspositionKey> getKeyCache() {
+        return keyCache;
+    }
+    
+    /**
+     * Looks up (or parses and caches) the compiled permutation for a key string.
+     * Values outside 1 to n are skipped as they always have been; use
+     * TranspositionKey.parse for strict validation.
      * @param key The key in format "plaintextIndices\nciphertextPositions" (two lines)
+     * @return The compiled key
+     * @throws IllegalArgumentException If the key does not have two rows of integers of equal length
+     */
+    public TranspositionKey compileKey(String key) {
+        return keyCache.get(key, TranspositionKey::parseLenient);
+    }
+    
+    /**
+     * Encrypts plaintext using keyed transposition
+     * @param plaintext The text to encrypt
+     * @param key The key in format "plaintextIndices\nciphertextPositions" (two lines of n values)
      * @return The encrypted ciphertext
      */
     @Override
     public String encrypt(String plaintext, String key) {
-        // Parse key into two rows
-        String[] keyLines = key.trim().split("\n");
-        if (keyLines.length < 2) {
-            keyLines = key.trim().split("\\|");
-        }
-        if (keyLines.length < 2) {
-            return plaintext; // Invalid key format
-        }
-        
-        // Parse first row: plaintext indices
-        String[] plaintextIndicesStr = keyLines[0].trim().split("\\s+");
-        // Parse second row: ciphertext positions
-        String[] ciphertextPositionsStr = keyLines[1].trim().split("\\s+");
-        
-        if (plaintextIndicesStr.length != 5 || ciphertextPositionsStr.length != 5) {
-            return plaintext; // Must be exactly 5 values in each row
-        }
-        
-        int[] plaintextIndices = new int[5];
-        int[] ciphertextPositions = new int[5];
-        
+        TranspositionKey compiled;
         try {
-            for (int i = 0; i < 5; i++) {
-                plaintextIndices[i] = Integer.parseInt(plaintextIndicesStr[i]);
-                ciphertextPositions[i] = Integer.parseInt(ciphertextPositionsStr[i]);
-            }
-        } catch (NumberFormatException e) {
+            compiled = compileKey(key);
+        } catch (IllegalArgumentException e) {
             return plaintext; // Invalid key format
         }
-        
+        return encrypt(plaintext, compiled);
+    }
+    
+    /**
+     * Encrypts plaintext with a compiled key
+     * @param plaintext The text to encrypt (lowercased, spaces removed, padded with 'z')
+     * @param key The compiled permutation
+     * @return The encrypted ciphertext in uppercase
+     */
+    public String encrypt(String plaintext, TranspositionKey key) {
         // Convert to lowercase and remove spaces
-        String cleaned = plaintext.toLowerCase().replaceAll(" ", "");
+        String cleaned = plaintext.toLowerCase().replace(" ", "");
         
         if (cleaned.length() == 0) {
             return plaintext;
         }
         
-        // Pad to length divisible by 5 using 'z'
-        while (cleaned.length() % 5 != 0) {
-            cleaned += 'z';
-        }
+        // Pad to a whole number of blocks using 'z'
+        int width = key.getWidth();
+        int blocks = (cleaned.length() + width - 1) / width;
+        char[] padded = new char[blocks * width];
+        cleaned.getChars(0, cleaned.length(), padded, 0);
+        Arrays.fill(padded, cleaned.length(), padded.length, 'z');
         
-        // Process in blocks of 5
-        StringBuilder ciphertext = new StringBuilder();
-        int blockCount = cleaned.length() / 5;
+        key.encryptInPlace(padded, 0, blocks);
         
-        for (int block = 0; block < blockCount; block++) {
-            String currentBlock = cleaned.substring(block * 5, (block + 1) * 5);
-            
-            // Apply permutation: character at plaintext index i goes to ciphertext position j
-            char[] cipherBlock = new char[5];
-            for (int i = 0; i < 5; i++) {
-                // plaintextIndices[i] is 1-indexed, convert to 0-indexed
-                int plainIndex = plaintextIndices[i] - 1;
-                // ciphertextPositions[i] is 1-indexed, convert to 0-indexed
-                int cipherPos = ciphertextPositions[i] - 1;
-                
-                // Character from plaintext index goes to ciphertext position
-                if (plainIndex >= 0 && plainIndex < 5 && cipherPos >= 0 && cipherPos < 5) {
-                    cipherBlock[cipherPos] = currentBlock.charAt(plainIndex);
-                }
-            }
-            
-            // Convert block to uppercase and append
-            for (char c : cipherBlock) {
-                ciphertext.append(Character.toUpperCase(c));
-            }
+        // Convert to uppercase
+        for (int i = 0; i < padded.length; i++) {
+            padded[i] = Character.toUpperCase(padded[i]);
         }
         
-        return ciphertext.toString();
+        return new String(padded);
     }
     
     /**
-     * Decrypts ciphertext using keyed transposition with 2x5 matrix
+     * Decrypts ciphertext using keyed transposition
      * @param ciphertext The text to decrypt
-     * @param key The key in format "plaintextIndices\nciphertextPositions" (two lines)
+     * @param key The key in format "plaintextIndices\nciphertextPositions" (two lines of n values)
      * @return The decrypted plaintext
      */
     @Override
     public String decrypt(String ciphertext, String key) {
-        // Parse key into two rows
-        String[] keyLines = key.trim().split("\n");
-        if (keyLines.length < 2) {
-            keyLines = key.trim().split("\\|");
-        }
-        if (keyLines.length < 2) {
-            return ciphertext; // Invalid key format
-        }
-        
-        // Parse first row: plaintext indices
-        String[] plaintextIndicesStr = keyLines[0].trim().split("\\s+");
-        // Parse second row: ciphertext positions
-        String[] ciphertextPositionsStr = keyLines[1].trim().split("\\s+");
-        
-        if (plaintextIndicesStr.length != 5 || ciphertextPositionsStr.length != 5) {
-            return ciphertext; // Must be exactly 5 values in each row
-        }
-        
-        int[] plaintextIndices = new int[5];
-        int[] ciphertextPositions = new int[5];
-        
+        TranspositionKey compiled;
         try {
-            for (int i = 0; i < 5; i++) {
-                plaintextIndices[i] = Integer.parseInt(plaintextIndicesStr[i]);
-                ciphertextPositions[i] = Integer.parseInt(ciphertextPositionsStr[i]);
-            }
-        } catch (NumberFormatException e) {
+            compiled = compileKey(key);
+        } catch (IllegalArgumentException e) {
             return ciphertext; // Invalid key format
         }
-        
+        return decrypt(ciphertext, compiled);
+    }
+    
+    /**
+     * Decrypts ciphertext with a compiled key
+     * @param ciphertext The text to decrypt (a trailing partial block is ignored)
+     * @param key The compiled permutation
+     * @return The decrypted plaintext in lowercase, trailing 'z' padding removed
+     */
+    public String decrypt(String ciphertext, TranspositionKey key) {
         // Convert to lowercase
-        String cleaned = ciphertext.toLowerCase().replaceAll(" ", "");
+        String cleaned = ciphertext.toLowerCase().replace(" ", "");
         
         if (cleaned.length() == 0) {
             return ciphertext;
         }
         
-        // Process in blocks of 5
-        StringBuilder plaintext = new StringBuilder();
-        int blockCount = cleaned.length() / 5;
-        
-        for (int block = 0; block < blockCount; block++) {
-            String currentBlock = cleaned.substring(block * 5, (block + 1) * 5);
-            
-            // Reverse permutation: character at ciphertext position j came from plaintext index i
-            char[] plainBlock = new char[5];
-            for (int i = 0; i < 5; i++) {
-                // Find which ciphertext position corresponds to this plaintext index
-                int plainIndex = plaintextIndices[i] - 1; // Convert to 0-indexed
-                int cipherPos = ciphertextPositions[i] - 1; // Convert to 0-indexed
-                
-                // Character at ciphertext position came from plaintext index
-                if (plainIndex >= 0 && plainIndex < 5 && cipherPos >= 0 && cipherPos < 5) {
-                    plainBlock[plainIndex] = currentBlock.charAt(cipherPos);
-                }
-            }
-            
-            plaintext.append(new String(plainBlock));
-        }
+        // A trailing partial block is dropped
+        int blocks = cleaned.length() / key.getWidth();
+        char[] plaintext = cleaned.toCharArray();
+        key.decryptInPlace(plaintext, 0, blocks);
         
         // Remove padding 'z' at the end
-        String result = plaintext.toString();
-        while (result.endsWith("z")) {
-            result = result.substring(0, result.length() - 1);
+        int end = blocks * key.getWidth();
+        while (end > 0 && plaintext[end - 1] == 'z') {
+            end--;
         }
         
-        return result;
+        return new String(plaintext, 0, end);
     }
     
     /**
@@ -182,47 +160,48 @@ public class KeyedTranspositionCipher implements EncryptionAlgorithm {
         String[] plaintextIndicesStr = keyLines[0].trim().split("\\s+");
         String[] ciphertextPositionsStr = keyLines[1].trim().split("\\s+");
         
-        if (plaintextIndicesStr.length != 5 || ciphertextPositionsStr.length != 5) {
-            System.out.println("Invalid key! Must have exactly 5 values in each row.");
+        if (plaintextIndicesStr.length != ciphertextPositionsStr.length) {
+            System.out.println("Invalid key! Both rows must have the same number of values.");
             return;
         }
+        int width = plaintextIndicesStr.length;
         
         System.out.println("\n--- Step-by-Step Keyed Transposition Encryption ---");
         System.out.println("Plaintext: " + text);
-        System.out.println("\nPermutation Key (2x5 matrix):");
+        System.out.println("\nPermutation Key (2x" + width + " matrix):");
         System.out.println("  Plaintext indices:    " + keyLines[0].trim());
         System.out.println("  Ciphertext positions: " + keyLines[1].trim());
         
         // Convert to lowercase and remove spaces
         String cleaned = text.toLowerCase().replaceAll(" ", "");
         
-        // Pad to length divisible by 5
+        // Pad to length divisible by the block width
         String originalCleaned = cleaned;
-        while (cleaned.length() % 5 != 0) {
+        while (cleaned.length() % width != 0) {
             cleaned += 'z';
         }
         
         if (!originalCleaned.equals(cleaned)) {
-            System.out.println("\nPadded message (to make length divisible by 5): " + cleaned);
+            System.out.println("\nPadded message (to make length divisible by " + width + "): " + cleaned);
         }
         
-        int blockCount = cleaned.length() / 5;
-        System.out.println("\nProcessing in " + blockCount + " block(s) of 5 characters:");
+        int blockCount = cleaned.length() / width;
+        System.out.println("\nProcessing in " + blockCount + " block(s) of " + width + " characters:");
         
         // Show transformation for each block
         for (int block = 0; block < blockCount; block++) {
-            String currentBlock = cleaned.substring(block * 5, (block + 1) * 5);
+            String currentBlock = cleaned.substring(block * width, (block + 1) * width);
             System.out.println("\nBlock " + (block + 1) + ": " + currentBlock.toUpperCase());
-            System.out.println("  Plaintext positions (1-5):");
-            for (int i = 0; i < 5; i++) {
+            System.out.println("  Plaintext positions (1-" + width + "):");
+            for (int i = 0; i < width; i++) {
                 System.out.println("    Position " + (i + 1) + ": " + Character.toUpperCase(currentBlock.charAt(i)));
             }
             
             System.out.println("\n  Applying permutation:");
-            for (int i = 0; i < 5; i++) {
+            for (int i = 0; i < width; i++) {
                 int plainIndex = Integer.parseInt(plaintextIndicesStr[i]) - 1;
                 int cipherPos = Integer.parseInt(ciphertextPositionsStr[i]) - 1;
-                if (plainIndex >= 0 && plainIndex < 5 && cipherPos >= 0 && cipherPos < 5) {
+                if (plainIndex >= 0 && plainIndex < width && cipherPos >= 0 && cipherPos < width) {
                     System.out.println("    Plaintext index " + plaintextIndicesStr[i] + " ('" + 
                                      Character.toUpperCase(currentBlock.charAt(plainIndex)) + 
                                      "') → Ciphertext position " + ciphertextPositionsStr[i]);
@@ -240,7 +219,7 @@ public class KeyedTranspositionCipher implements EncryptionAlgorithm {
             return;
         }
         
-        System.out.println("\nEnter the 2x5 permutation key:");
+        System.out.println("\nEnter the 2xn permutation key (e.g., n = 5):");
         System.out.println("First row (plaintext indices, e.g., 3 1 4 5 2): ");
         String firstRow = InputValidator.getInput("");
         
@@ -284,7 +263,7 @@ public class KeyedTranspositionCipher implements EncryptionAlgorithm {
             keyLines = key.trim().split("\\|");
         }
         if (keyLines.length >= 2) {
-            System.out.println("Permutation Key (2x5 matrix):");
+            System.out.println("Permutation Key (2x" + keyLines[0].trim().split("\\s+").length + " matrix):");
             System.out.println("  Plaintext indices:    " + keyLines[0].trim());
             System.out.println("  Ciphertext positions: " + keyLines[1].trim());
         } else {
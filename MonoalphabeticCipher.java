@@ -1,135 +1,192 @@
+import java.nio.charset.StandardCharsets;
+
 /**
- * Monoalphabetic Substitution Cipher Implementation (Caesar Cipher)
- * Shifts each letter by a fixed number of positions in the alphabet
+ * Monoalphabetic Substitution Cipher Implementation
+ * Replaces each letter using a fixed substitution: either a Caesar shift
+ * (an integer key) or any 26-letter substitution alphabet
  */
 public class MonoalphabeticCipher implements EncryptionAlgorithm {
     
     private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     
+    private static final String KEY_ERROR = "Error: Invalid key format. Expected an integer or a 26-letter alphabet.";
+    
+    /** Number of compiled keys kept by the shared cache */
+    public static final int DEFAULT_CACHE_CAPACITY = 64;
+    
+    private static final KeyCache<String, SubstitutionKey> SHARED_KEYS = new KeyCache<>(DEFAULT_CACHE_CAPACITY);
+    
+    private final KeyCache<String, SubstitutionKey> keyCache;
+    
+    /** Creates a cipher that uses the shared compiled-key cache */
+    public MonoalphabeticCipher() {
+        this.keyCache = SHARED_KEYS;
+    }
+    
+    /**
+     * Creates a cipher with its own compiled-key cache
+     * @param cacheCapacity Number of compiled keys to keep
+     */
+    public MonoalphabeticCipher(int cacheCapacity) {
+        this.keyCache = new KeyCache<>(cacheCapacity);
+    }
+    
+    /**
+     * @return The cache of compiled keys used by this cipher
+     */
+    public KeyCache<String, SubstitutionKey> getKeyCache() {
+        return keyCache;
+    }
+    
+    /**
+     * Looks up (or parses and caches) the translation tables for a key string
+     * @param key An integer shift or a 26-letter substitution alphabet
+     * @return The compiled key
+     * @throws IllegalArgumentException If the key is neither
+     */
+    public SubstitutionKey compileKey(String key) {
+        return keyCache.get(key, SubstitutionKey::parse);
+    }
+    
     /**
      * Normalizes shift value to handle values beyond ±26
      * @param shift The shift value
      * @return Normalized shift value in range [-25, 25]
      */
     private int normalizeShift(int shift) {
-        // Handle positive shifts > 26
-        while (shift > 25) {
-            shift -= 26;
-        }
-        // Handle negative shifts < -26
-        while (shift < -25) {
-            shift += 26;
+        // The remainder keeps the sign, so -27 becomes -1 and 27 becomes 1
+        return shift % 26;
+    }
+    
+    /**
+     * Parses an integer shift key
+     * @param key The key text
+     * @return The shift, or null if the key is not an integer
+     */
+    private static Integer parseShift(String key) {
+        try {
+            return Integer.parseInt(key.trim());
+        } catch (NumberFormatException e) {
+            return null;
         }
-        return shift;
     }
     
     /**
-     * Encrypts plaintext using Caesar cipher shift
+     * Encrypts plaintext by substitution
      * @param plaintext The text to encrypt
-     * @param key An integer shift value (string format)
+     * @param key An integer shift or a 26-letter substitution alphabet
      * @return The encrypted ciphertext
      */
     @Override
     public String encrypt(String plaintext, String key) {
-        // Parse integer shift from key string
-        int shift;
+        SubstitutionKey compiled;
         try {
-            shift = Integer.parseInt(key.trim());
-        } catch (NumberFormatException e) {
-            return "Error: Invalid key format. Expected an integer.";
-        }
-        
-        // Normalize shift
-        shift = normalizeShift(shift);
-        
-        // Convert to uppercase for consistency
-        plaintext = plaintext.toUpperCase();
-        
-        StringBuilder ciphertext = new StringBuilder();
-        
-        for (char c : plaintext.toCharArray()) {
-            if (Character.isLetter(c)) {
-                // Find position in alphabet and apply shift
-                int index = ALPHABET.indexOf(c);
-                if (index != -1) {
-                    int shiftedIndex = (index + shift + 26) % 26;
-                    ciphertext.append(ALPHABET.charAt(shiftedIndex));
-                }
-            } else {
-                // Keep non-alphabetic characters as-is
-                ciphertext.append(c);
-            }
+            compiled = compileKey(key);
+        } catch (IllegalArgumentException e) {
+            return KEY_ERROR;
         }
-        
-        return ciphertext.toString();
+        return encrypt(plaintext, compiled);
+    }
+    
+    /**
+     * Encrypts plaintext with a compiled key
+     * @param plaintext The text to encrypt (uppercased; letters outside A-Z are dropped)
+     * @param key The compiled key
+     * @return The encrypted ciphertext
+     */
+    public String encrypt(String plaintext, SubstitutionKey key) {
+        return translate(plaintext, key, false);
     }
     
     /**
-     * Decrypts ciphertext using Caesar cipher shift
+     * Decrypts ciphertext by reversing the substitution
      * @param ciphertext The text to decrypt
-     * @param key An integer shift value (string format)
+     * @param key An integer shift or a 26-letter substitution alphabet
      * @return The decrypted plaintext
      */
     @Override
     public String decrypt(String ciphertext, String key) {
-        // Parse integer shift from key string
-        int shift;
+        SubstitutionKey compiled;
         try {
-            shift = Integer.parseInt(key.trim());
-        } catch (NumberFormatException e) {
-            return "Error: Invalid key format. Expected an integer.";
+            compiled = compileKey(key);
+        } catch (IllegalArgumentException e) {
+            return KEY_ERROR;
+        }
+        return decrypt(ciphertext, compiled);
+    }
+    
+    /**
+     * Decrypts ciphertext with a compiled key
+     * @param ciphertext The text to decrypt (uppercased; letters outside A-Z are dropped)
+     * @param key The compiled key
+     * @return The decrypted plaintext
+     */
+    public String decrypt(String ciphertext, SubstitutionKey key) {
+        return translate(ciphertext, key, true);
+    }
+    
+    private static String translate(String text, SubstitutionKey key, boolean decrypt) {
+        // ASCII text is one table read per character, or the word-at-a-time kernel for shifts
+        if (AsciiShiftKernel.isAscii(text)) {
+            byte[] data = text.getBytes(StandardCharsets.ISO_8859_1);
+            if (key.getShift() >= 0) {
+                AsciiShiftKernel.caesar(data, decrypt ? (26 - key.getShift()) % 26 : key.getShift());
+            } else if (decrypt) {
+                key.decrypt(data, 0, data.length);
+            } else {
+                key.encrypt(data, 0, data.length);
+            }
+            return new String(data, StandardCharsets.ISO_8859_1);
         }
         
-        // Normalize shift
-        shift = normalizeShift(shift);
-        
-        // Convert to uppercase for consistency
-        ciphertext = ciphertext.toUpperCase();
-        
-        StringBuilder plaintext = new StringBuilder();
+        // Convert to uppercase first, since that can change the length (e.g. 'ß' becomes "SS")
+        text = text.toUpperCase();
         
-        for (char c : ciphertext.toCharArray()) {
-            if (Character.isLetter(c)) {
-                // Find position in alphabet and apply reverse shift
-                int index = ALPHABET.indexOf(c);
-                if (index != -1) {
-                    int shiftedIndex = (index - shift + 26) % 26;
-                    plaintext.append(ALPHABET.charAt(shiftedIndex));
-                }
-            } else {
+        char[] out = new char[text.length()];
+        int size = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 128) {
+                // Letters are substituted, other ASCII characters map to themselves
+                out[size++] = decrypt ? key.decrypt(c) : key.encrypt(c);
+            } else if (!Character.isLetter(c)) {
                 // Keep non-alphabetic characters as-is
-                plaintext.append(c);
+                out[size++] = c;
             }
+            // Letters outside A-Z are dropped
         }
         
-        return plaintext.toString();
+        return new String(out, 0, size);
     }
     
     /**
      * Displays step-by-step encryption process
      * @param text The plaintext
-     * @param key The shift key (integer as string)
+     * @param key An integer shift or a 26-letter substitution alphabet
      */
     @Override
     public void displaySteps(String text, String key) {
-        // Parse shift
-        int shift;
+        SubstitutionKey compiled;
         try {
-            shift = Integer.parseInt(key.trim());
-        } catch (NumberFormatException e) {
-            System.out.println("Error: Invalid key format. Expected an integer.");
+            compiled = compileKey(key);
+        } catch (IllegalArgumentException e) {
+            System.out.println(KEY_ERROR);
             return;
         }
         
-        // Normalize shift
-        int originalShift = shift;
-        shift = normalizeShift(shift);
-        
         text = text.toUpperCase();
         
         System.out.println("\n--- Step-by-Step Monoalphabetic Cipher Encryption ---");
-        System.out.println("Shift value: " + originalShift + (originalShift != shift ? " (normalized to " + shift + ")" : ""));
-        System.out.println("Alphabet:    " + ALPHABET);
+        Integer originalShift = parseShift(key);
+        int shift = 0;
+        if (originalShift != null) {
+            shift = normalizeShift(originalShift);
+            System.out.println("Shift value: " + originalShift + (originalShift != shift ? " (normalized to " + shift + ")" : ""));
+            System.out.println("Alphabet:    " + ALPHABET);
+        } else {
+            System.out.println("Alphabet:    " + ALPHABET);
+            System.out.println("Substitutes: " + compiled.getAlphabet());
+        }
         System.out.println("Plaintext:   " + text);
         System.out.println("\nCharacter Transformations:");
         
@@ -137,10 +194,10 @@ public class MonoalphabeticCipher implements EncryptionAlgorithm {
             if (Character.isLetter(c)) {
                 int index = ALPHABET.indexOf(c);
                 if (index != -1) {
-                    int shiftedIndex = (index + shift + 26) % 26;
-                    char encryptedChar = ALPHABET.charAt(shiftedIndex);
-                    System.out.println("  " + c + " (pos " + index + ") + " + shift + " -> " + 
-                                      encryptedChar + " (pos " + shiftedIndex + ")");
+                    char encryptedChar = compiled.encrypt(c);
+                    int shiftedIndex = encryptedChar - 'A';
+                    System.out.println("  " + c + " (pos " + index + ")" + (originalShift != null ? " + " + shift : "")
+                                      + " -> " + encryptedChar + " (pos " + shiftedIndex + ")");
                 } else {
                     System.out.println("  " + c + " -> " + c + " (not in alphabet)");
                 }
@@ -161,15 +218,17 @@ public class MonoalphabeticCipher implements EncryptionAlgorithm {
         }
         
         // Get and validate key
-        String keyInput = InputValidator.getInput("Enter shift key (integer, e.g., 3 or -5): ");
-        int shift;
+        String keyInput = InputValidator.getInput("Enter key (integer shift, e.g., 3 or -5, or a 26-letter alphabet): ");
         try {
-            shift = Integer.parseInt(keyInput.trim());
-            System.out.println("Shift normalized from " + shift + " to " + normalizeShift(shift));
-        } catch (NumberFormatException e) {
-            System.out.println("Error: Key must be an integer!");
+            compileKey(keyInput);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: Key must be an integer or a 26-letter alphabet!");
             return;
         }
+        Integer shift = parseShift(keyInput);
+        if (shift != null) {
+            System.out.println("Shift normalized from " + shift + " to " + normalizeShift(shift));
+        }
         
         String key = keyInput.trim();
         
@@ -189,19 +248,22 @@ public class MonoalphabeticCipher implements EncryptionAlgorithm {
      */
     public void runDecryption(String ciphertext, String key) {
         // Parse and validate key
-        int shift;
+        SubstitutionKey compiled;
         try {
-            shift = Integer.parseInt(key.trim());
-        } catch (NumberFormatException e) {
-            System.out.println("Error: Key must be an integer!");
+            compiled = compileKey(key);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: Key must be an integer or a 26-letter alphabet!");
             return;
         }
         
         // Normalize shift
-        int originalShift = shift;
-        shift = normalizeShift(shift);
-        if (originalShift != shift) {
-            System.out.println("Shift normalized from " + originalShift + " to " + shift);
+        Integer originalShift = parseShift(key);
+        int shift = 0;
+        if (originalShift != null) {
+            shift = normalizeShift(originalShift);
+            if (originalShift != shift) {
+                System.out.println("Shift normalized from " + originalShift + " to " + shift);
+            }
         }
         
         // Convert to uppercase
@@ -209,8 +271,13 @@ public class MonoalphabeticCipher implements EncryptionAlgorithm {
         
         // Display decryption process
         System.out.println("\n--- Step-by-Step Monoalphabetic Cipher Decryption ---");
-        System.out.println("Shift value: " + shift);
-        System.out.println("Alphabet:    " + ALPHABET);
+        if (originalShift != null) {
+            System.out.println("Shift value: " + shift);
+            System.out.println("Alphabet:    " + ALPHABET);
+        } else {
+            System.out.println("Alphabet:    " + ALPHABET);
+            System.out.println("Substitutes: " + compiled.getAlphabet());
+        }
         System.out.println("Ciphertext:  " + ciphertext);
         System.out.println("\nCharacter Transformations:");
         
@@ -218,10 +285,10 @@ public class MonoalphabeticCipher implements EncryptionAlgorithm {
             if (Character.isLetter(c)) {
                 int index = ALPHABET.indexOf(c);
                 if (index != -1) {
-                    int shiftedIndex = (index - shift + 26) % 26;
-                    char decryptedChar = ALPHABET.charAt(shiftedIndex);
-                    System.out.println("  " + c + " (pos " + index + ") - " + shift + " -> " + 
-                                      decryptedChar + " (pos " + shiftedIndex + ")");
+                    char decryptedChar = compiled.decrypt(c);
+                    int shiftedIndex = decryptedChar - 'A';
+                    System.out.println("  " + c + " (pos " + index + ")" + (originalShift != null ? " - " + shift : "")
+                                      + " -> " + decryptedChar + " (pos " + shiftedIndex + ")");
                 } else {
                     System.out.println("  " + c + " -> " + c + " (not in alphabet)");
                 }
@@ -231,7 +298,7 @@ public class MonoalphabeticCipher implements EncryptionAlgorithm {
         }
         
         // Perform decryption
-        String plaintext = decrypt(ciphertext, key);
+        String plaintext = decrypt(ciphertext, compiled);
         
         // Display result
         System.out.println("\n--- Result ---");
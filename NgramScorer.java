@@ -0,0 +1,268 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * English-likeness score for candidate decryptions, used by the key-search solvers.
+ * Holds log10 probabilities for every n-gram of letters A-Z in one flat float[]
+ * indexed by the n-gram read as a base-26 number, so scoring a text is one table
+ * read per letter. Scores are sums of log probabilities: higher is more English-like.
+ *
+ * Tables come from a counts file ("TION 13168375" lines, as published for
+ * cryptanalysis work), from any corpus of English text, or from the small sample
+ * built in. Corpus tables are smoothed by mixing in lower-order estimates, since a
+ * few thousand letters leave most n-grams unseen. Instances are immutable and safe
+ * to share between threads.
+ */
+public final class NgramScorer {
+
+    /** Smallest and largest supported n-gram lengths */
+    public static final int MIN_N = 1;
+    public static final int MAX_N = 5;
+
+    private static final NgramScorer[] ENGLISH = new NgramScorer[MAX_N + 1];
+
+    private final int n;
+    private final int modulus;
+    private final float[] table;
+
+    private NgramScorer(int n, float[] table) {
+        this.n = n;
+        this.modulus = table.length / 26;
+        this.table = table;
+    }
+
+    /**
+     * Returns the scorer built from the embedded English sample (built once per n)
+     * @param n The n-gram length, e.g. 4 for quadgrams
+     * @return The scorer
+     */
+    public static NgramScorer english(int n) {
+        checkN(n);
+        synchronized (ENGLISH) {
+            if (ENGLISH[n] == null) {
+                try {
+                    ENGLISH[n] = fromCorpus(new StringReader(EnglishSample.TEXT), n);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return ENGLISH[n];
+        }
+    }
+
+    /**
+     * Builds a smoothed table from English text. Non-letters are skipped, so n-grams
+     * run across word boundaries as they do in ciphertexts without spaces.
+     * @param corpus The text (not closed)
+     * @param n The n-gram length
+     * @return The scorer
+     * @throws IOException If reading fails
+     */
+    public static NgramScorer fromCorpus(Reader corpus, int n) throws IOException {
+        checkN(n);
+        long[] unigrams = new long[26];
+        long[] prefixes = new long[size(n - 1)];
+        long[] ngrams = new long[size(n)];
+        int prefixModulus = size(n - 1);
+
+        char[] buffer = new char[8192];
+        int index = 0;
+        int letters = 0;
+        int read;
+        while ((read = corpus.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                int letter = letterIndex(buffer[i]);
+                if (letter < 0) {
+                    continue;
+                }
+                unigrams[letter]++;
+                letters++;
+                if (letters >= n) {
+                    // index still holds the previous n - 1 letters: the prefix
+                    prefixes[index % prefixModulus]++;
+                }
+                index = (index % prefixModulus) * 26 + letter;
+                if (letters >= n) {
+                    ngrams[index]++;
+                }
+            }
+        }
+
+        long total = 0;
+        for (long count : ngrams) {
+            total += count;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Corpus has fewer than " + n + " letters");
+        }
+
+        // Mix the n-gram estimate with (prefix x last letter) and all-unigram estimates
+        double[] unigramP = new double[26];
+        for (int i = 0; i < 26; i++) {
+            unigramP[i] = (unigrams[i] + 0.5) / (letters + 13.0);
+        }
+        float[] table = new float[ngrams.length];
+        for (int gram = 0; gram < ngrams.length; gram++) {
+            double independent = 1;
+            for (int rest = gram, i = 0; i < n; i++, rest /= 26) {
+                independent *= unigramP[rest % 26];
+            }
+            double p = independent;
+            if (n > 1) {
+                double full = (double) ngrams[gram] / total;
+                double prefix = (double) prefixes[gram / 26] / total * unigramP[gram % 26];
+                p = 0.7 * full + 0.2 * prefix + 0.1 * independent;
+            }
+            table[gram] = (float) Math.log10(p);
+        }
+        return new NgramScorer(n, table);
+    }
+
+    /**
+     * Builds a table from n-gram counts, one "NGRAM COUNT" pair per line. Unseen
+     * n-grams get log10(0.01 / total). All n-grams must have the same length.
+     * @param counts The counts (not closed)
+     * @return The scorer
+     * @throws IOException If reading fails or a line is malformed
+     */
+    public static NgramScorer fromCounts(Reader counts) throws IOException {
+        BufferedReader lines = new BufferedReader(counts);
+        int n = 0;
+        long total = 0;
+        long[] ngrams = null;
+
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2) {
+                throw new IOException("Line " + lineNumber + ": expected 'NGRAM COUNT'");
+            }
+            if (ngrams == null) {
+                n = parts[0].length();
+                checkN(n);
+                ngrams = new long[size(n)];
+            }
+            if (parts[0].length() != n) {
+                throw new IOException("Line " + lineNumber + ": n-gram length differs from " + n);
+            }
+            int gram = 0;
+            for (int i = 0; i < n; i++) {
+                int letter = letterIndex(parts[0].charAt(i));
+                if (letter < 0) {
+                    throw new IOException("Line " + lineNumber + ": not a letter n-gram: " + parts[0]);
+                }
+                gram = gram * 26 + letter;
+            }
+            long count;
+            try {
+                count = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + ": invalid count: " + parts[1]);
+            }
+            ngrams[gram] += count;
+            total += count;
+        }
+        if (ngrams == null || total <= 0) {
+            throw new IOException("No n-gram counts found");
+        }
+
+        float floor = (float) Math.log10(0.01 / total);
+        float[] table = new float[ngrams.length];
+        for (int gram = 0; gram < ngrams.length; gram++) {
+            table[gram] = ngrams[gram] == 0 ? floor : (float) Math.log10((double) ngrams[gram] / total);
+        }
+        return new NgramScorer(n, table);
+    }
+
+    private static void checkN(int n) {
+        if (n < MIN_N || n > MAX_N) {
+            throw new IllegalArgumentException("N-gram length must be between " + MIN_N + " and " + MAX_N);
+        }
+    }
+
+    private static int size(int n) {
+        int size = 1;
+        for (int i = 0; i < n; i++) {
+            size *= 26;
+        }
+        return size;
+    }
+
+    /**
+     * @return Alphabet index 0-25 of an ASCII letter of either case, -1 otherwise
+     */
+    static int letterIndex(char c) {
+        int upper = c & ~0x20;
+        return c < 128 && upper >= 'A' && upper <= 'Z' ? upper - 'A' : -1;
+    }
+
+    /**
+     * Extracts the letters of a text as alphabet indices 0-25, dropping everything else
+     * @param text The text
+     * @return The letter indices
+     */
+    public static byte[] letters(CharSequence text) {
+        byte[] letters = new byte[text.length()];
+        int size = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int letter = letterIndex(text.charAt(i));
+            if (letter >= 0) {
+                letters[size++] = (byte) letter;
+            }
+        }
+        return Arrays.copyOf(letters, size);
+    }
+
+    /**
+     * @return The n-gram length
+     */
+    public int getN() {
+        return n;
+    }
+
+    /**
+     * @param gram An n-gram as a base-26 number (first letter most significant)
+     * @return Its log10 probability
+     */
+    public float get(int gram) {
+        return table[gram];
+    }
+
+    /**
+     * Scores a text given as letter indices
+     * @param letters Letter indices 0-25
+     * @param length Number of letters to score
+     * @return Sum of log10 probabilities of every n-gram in the text
+     */
+    public double score(byte[] letters, int length) {
+        double score = 0;
+        int gram = 0;
+        for (int i = 0; i < length; i++) {
+            gram = (gram % modulus) * 26 + letters[i];
+            if (i >= n - 1) {
+                score += table[gram];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Scores the letters of a text (everything else is ignored)
+     * @param text The text
+     * @return Sum of log10 probabilities of every n-gram in the text
+     */
+    public double score(CharSequence text) {
+        byte[] letters = letters(text);
+        return score(letters, letters.length);
+    }
+}
@@ -1,100 +1,69 @@
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
 /**
  * Playfair Cipher Implementation
  * Uses a 5x5 matrix to encrypt digraphs (pairs of letters)
  */
 public class PlayfairCipher implements EncryptionAlgorithm {
     
-    private static final String ALPHABET = "ABCDEFGHIKLMNOPQRSTUVWXYZ"; // J removed for 5x5 grid
+    /** Number of compiled keys kept by the shared cache */
+    public static final int DEFAULT_CACHE_CAPACITY = 64;
+    
+    private static final KeyCache<String, PlayfairKey> SHARED_KEYS = new KeyCache<>(DEFAULT_CACHE_CAPACITY);
+    
+    private final KeyCache<String, PlayfairKey> keyCache;
+    
+    /** Creates a cipher that uses the shared compiled-key cache */
+    public PlayfairCipher() {
+        this.keyCache = SHARED_KEYS;
+    }
     
     /**
-     * Builds the Playfair 5x5 key matrix
-     * @param key The keyword
-     * @return A 25-character string representing the matrix
+     * Creates a cipher with its own compiled-key cache
+     * @param cacheCapacity Number of compiled keys to keep
      */
-    private String buildMatrix(String key) {
-        // Remove duplicate letters from key
-        Set<Character> used = new HashSet<>();
-        StringBuilder matrix = new StringBuilder();
-        
-        // Add key letters first
-        for (char c : key.toCharArray()) {
-            char upper = Character.toUpperCase(c);
-            if (upper == 'J') upper = 'I'; // Treat J as I
-            if (Character.isLetter(upper) && !used.contains(upper)) {
-                matrix.append(upper);
-                used.add(upper);
-            }
-        }
-        
-        // Add remaining alphabet letters
-        for (char c : ALPHABET.toCharArray()) {
-            if (!used.contains(c)) {
-                matrix.append(c);
-            }
-        }
-        
-        return matrix.toString();
+    public PlayfairCipher(int cacheCapacity) {
+        this.keyCache = new KeyCache<>(cacheCapacity);
     }
     
     /**
-     * Gets row and column of a letter in the matrix
-     * @param letter The letter to find
-     * @param matrix The 5x5 matrix
-     * @return An int[] with [row, col]
+     * @return The cache of compiled keys used by this cipher
      */
-    private int[] getPosition(char letter, String matrix) {
-        if (letter == 'J') letter = 'I';
-        int index = matrix.indexOf(letter);
-        if (index == -1) return null;
-        return new int[]{index / 5, index % 5};
+    public KeyCache<String, PlayfairKey> getKeyCache() {
+        return keyCache;
     }
     
     /**
-     * Prepares plaintext for Playfair encryption
-     * @param text The plaintext
-     * @return List of digraphs (pairs)
+     * Looks up (or builds and caches) the compiled matrix and digraph tables for a keyword
+     * @param key The keyword
+     * @return The compiled key
      */
-    private List<String> prepareDigraphs(String text) {
-        text = text.toUpperCase();
-        
-        // Remove non-letters and replace J with I
-        StringBuilder cleaned = new StringBuilder();
+    public PlayfairKey compileKey(String key) {
+        return keyCache.get(key, PlayfairKey::fromKeyword);
+    }
+    
+    /**
+     * Prepares plaintext for display: letters only, J as I, X between doubled
+     * letters and after an odd last letter
+     * @param text The plaintext (uppercase)
+     * @return The digraphs run together, an even number of letters
+     */
+    private String prepareDigraphs(String text) {
+        StringBuilder pairs = new StringBuilder();
         for (char c : text.toCharArray()) {
-            if (Character.isLetter(c)) {
-                if (c == 'J') {
-                    cleaned.append('I');
-                } else {
-                    cleaned.append(c);
-                }
+            if (!Character.isLetter(c)) {
+                continue;
             }
-        }
-        
-        String plaintext = cleaned.toString();
-        List<String> digraphs = new ArrayList<>();
-        int i = 0;
-        
-        while (i < plaintext.length()) {
-            if (i == plaintext.length() - 1) {
-                // Last letter, add X as padding
-                digraphs.add(plaintext.charAt(i) + "X");
-                i++;
-            } else if (plaintext.charAt(i) == plaintext.charAt(i + 1)) {
-                // Same letter pair, insert X
-                digraphs.add(plaintext.charAt(i) + "X");
-                i++;
-            } else {
-                // Normal pair
-                digraphs.add(plaintext.substring(i, i + 2));
-                i += 2;
+            if (c == 'J') {
+                c = 'I';
+            }
+            if (pairs.length() % 2 == 1 && pairs.charAt(pairs.length() - 1) == c) {
+                pairs.append('X'); // Same letter pair, insert X
             }
+            pairs.append(c);
         }
-        
-        return digraphs;
+        if (pairs.length() % 2 == 1) {
+            pairs.append('X'); // Last letter, add X as padding
+        }
+        return pairs.toString();
     }
     
     /**
@@ -105,47 +74,7 @@ public class PlayfairCipher implements EncryptionAlgorithm {
      */
     @Override
     public String encrypt(String plaintext, String key) {
-        plaintext = plaintext.toUpperCase();
-        key = key.toUpperCase();
-        
-        String matrix = buildMatrix(key);
-        List<String> digraphs = prepareDigraphs(plaintext);
-        StringBuilder ciphertext = new StringBuilder();
-        
-        for (String pair : digraphs) {
-            char a = pair.charAt(0);
-            char b = pair.charAt(1);
-            
-            int[] posA = getPosition(a, matrix);
-            int[] posB = getPosition(b, matrix);
-            
-            if (posA == null || posB == null) {
-                ciphertext.append(pair); // Keep as-is if not found
-                continue;
-            }
-            
-            int rowA = posA[0], colA = posA[1];
-            int rowB = posB[0], colB = posB[1];
-            
-            if (rowA == rowB) {
-                // Same row: shift right
-                char encA = matrix.charAt(rowA * 5 + (colA + 1) % 5);
-                char encB = matrix.charAt(rowB * 5 + (colB + 1) % 5);
-                ciphertext.append(encA).append(encB);
-            } else if (colA == colB) {
-                // Same column: shift down
-                char encA = matrix.charAt(((rowA + 1) % 5) * 5 + colA);
-                char encB = matrix.charAt(((rowB + 1) % 5) * 5 + colB);
-                ciphertext.append(encA).append(encB);
-            } else {
-                // Rectangle: swap columns
-                char encA = matrix.charAt(rowA * 5 + colB);
-                char encB = matrix.charAt(rowB * 5 + colA);
-                ciphertext.append(encA).append(encB);
-            }
-        }
-        
-        return ciphertext.toString();
+        return crypt(plaintext, key, false);
     }
     
     /**
@@ -156,62 +85,23 @@ public class PlayfairCipher implements EncryptionAlgorithm {
      */
     @Override
     public String decrypt(String ciphertext, String key) {
-        ciphertext = ciphertext.toUpperCase();
-        key = key.toUpperCase();
-        
-        String matrix = buildMatrix(key);
-        
-        // Split into digraphs
-        List<String> digraphs = new ArrayList<>();
-        for (int i = 0; i < ciphertext.length(); i += 2) {
-            if (i + 1 < ciphertext.length()) {
-                digraphs.add(ciphertext.substring(i, i + 2));
-            } else {
-                digraphs.add(ciphertext.substring(i));
-            }
-        }
-        
-        StringBuilder plaintext = new StringBuilder();
-        
-        for (String pair : digraphs) {
-            if (pair.length() != 2) {
-                plaintext.append(pair);
-                continue;
-            }
-            
-            char a = pair.charAt(0);
-            char b = pair.charAt(1);
-            
-            int[] posA = getPosition(a, matrix);
-            int[] posB = getPosition(b, matrix);
-            
-            if (posA == null || posB == null) {
-                plaintext.append(pair);
-                continue;
-            }
-            
-            int rowA = posA[0], colA = posA[1];
-            int rowB = posB[0], colB = posB[1];
-            
-            if (rowA == rowB) {
-                // Same row: shift left
-                char decA = matrix.charAt(rowA * 5 + (colA + 4) % 5);
-                char decB = matrix.charAt(rowB * 5 + (colB + 4) % 5);
-                plaintext.append(decA).append(decB);
-            } else if (colA == colB) {
-                // Same column: shift up
-                char decA = matrix.charAt(((rowA + 4) % 5) * 5 + colA);
-                char decB = matrix.charAt(((rowB + 4) % 5) * 5 + colB);
-                plaintext.append(decA).append(decB);
-            } else {
-                // Rectangle: swap columns
-                char decA = matrix.charAt(rowA * 5 + colB);
-                char decB = matrix.charAt(rowB * 5 + colA);
-                plaintext.append(decA).append(decB);
-            }
+        return crypt(ciphertext, key, true);
+    }
+    
+    /**
+     * Runs the whole text through one PlayfairSession. Non-ASCII text is uppercased
+     * up front, where uppercasing can change the length.
+     */
+    private String crypt(String text, String key, boolean decrypt) {
+        if (!AsciiShiftKernel.isAscii(text)) {
+            text = text.toUpperCase();
         }
-        
-        return plaintext.toString();
+        PlayfairSession session = new PlayfairSession(compileKey(key), decrypt);
+        char[] in = text.toCharArray();
+        char[] out = new char[PlayfairSession.maxOutput(in.length)];
+        int size = session.update(in, 0, in.length, out, 0);
+        size += session.finish(out, size);
+        return new String(out, 0, size);
     }
     
     /**
@@ -224,8 +114,9 @@ public class PlayfairCipher implements EncryptionAlgorithm {
         text = text.toUpperCase();
         key = key.toUpperCase();
         
-        String matrix = buildMatrix(key);
-        List<String> digraphs = prepareDigraphs(text);
+        PlayfairKey compiled = compileKey(key);
+        String matrix = compiled.getMatrix();
+        String digraphs = prepareDigraphs(text);
         
         System.out.println("\n--- Step-by-Step Playfair Encryption ---");
         System.out.println("Keyword: " + key);
@@ -238,21 +129,22 @@ public class PlayfairCipher implements EncryptionAlgorithm {
         }
         
         System.out.println("\nPrepared Digraphs:");
-        for (String pair : digraphs) {
-            System.out.print(pair + " ");
+        for (int i = 0; i < digraphs.length(); i += 2) {
+            System.out.print(digraphs.substring(i, i + 2) + " ");
         }
         System.out.println();
         
         System.out.println("\nEncryption for each digraph:");
-        for (String pair : digraphs) {
+        for (int i = 0; i < digraphs.length(); i += 2) {
+            String pair = digraphs.substring(i, i + 2);
             char a = pair.charAt(0);
             char b = pair.charAt(1);
-            int[] posA = getPosition(a, matrix);
-            int[] posB = getPosition(b, matrix);
+            int posA = compiled.indexOf(a);
+            int posB = compiled.indexOf(b);
             
-            if (posA != null && posB != null) {
-                int rowA = posA[0], colA = posA[1];
-                int rowB = posB[0], colB = posB[1];
+            if (posA != -1 && posB != -1) {
+                int rowA = posA / 5, colA = posA % 5;
+                int rowB = posB / 5, colB = posB % 5;
                 
                 if (rowA == rowB) {
                     System.out.println(String.format("  %s: Same row -> shift right", pair));
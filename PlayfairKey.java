@@ -0,0 +1,155 @@
+/**
+ * A compiled Playfair key: the 5x5 matrix plus 26x26 digraph tables for encryption
+ * and decryption, so each pair of letters becomes one array read. J shares I's
+ * position, so the J rows and columns of the tables repeat the I entries.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class PlayfairKey {
+
+    /** The 25 matrix letters (J removed) */
+    static final String ALPHABET = "ABCDEFGHIKLMNOPQRSTUVWXYZ";
+
+    private final String matrix;
+    // positions[letter - 'A'] is the matrix index of the letter (J maps to I's index)
+    private final byte[] positions = new byte[26];
+    // Tables indexed by first * 26 + second (letter indices 0-25); entries are
+    // the output pair packed as (first char << 16) | second char
+    private final int[] encryptTable = new int[26 * 26];
+    private final int[] decryptTable = new int[26 * 26];
+
+    private PlayfairKey(String matrix) {
+        this.matrix = matrix;
+        for (int i = 0; i < 25; i++) {
+            positions[matrix.charAt(i) - 'A'] = (byte) i;
+        }
+        positions['J' - 'A'] = positions['I' - 'A'];
+
+        for (int a = 0; a < 26; a++) {
+            for (int b = 0; b < 26; b++) {
+                encryptTable[a * 26 + b] = transform(positions[a], positions[b], 1);
+                decryptTable[a * 26 + b] = transform(positions[a], positions[b], 4);
+            }
+        }
+    }
+
+    /**
+     * Applies the Playfair rules to a pair of matrix positions
+     * @param step 1 to encrypt (right/down), 4 to decrypt (left/up)
+     */
+    private int transform(int posA, int posB, int step) {
+        int rowA = posA / 5, colA = posA % 5;
+        int rowB = posB / 5, colB = posB % 5;
+        int outA, outB;
+        if (rowA == rowB) {
+            // Same row: shift along the row
+            outA = rowA * 5 + (colA + step) % 5;
+            outB = rowB * 5 + (colB + step) % 5;
+        } else if (colA == colB) {
+            // Same column: shift along the column
+            outA = ((rowA + step) % 5) * 5 + colA;
+            outB = ((rowB + step) % 5) * 5 + colB;
+        } else {
+            // Rectangle: swap columns
+            outA = rowA * 5 + colB;
+            outB = rowB * 5 + colA;
+        }
+        return matrix.charAt(outA) << 16 | matrix.charAt(outB);
+    }
+
+    /**
+     * Compiles a keyword: its letters in order of first appearance (J as I),
+     * followed by the rest of the alphabet. Characters other than A-Z (either case)
+     * are ignored.
+     * @param keyword The keyword
+     * @return The compiled key
+     */
+    public static PlayfairKey fromKeyword(String keyword) {
+        boolean[] used = new boolean[26];
+        char[] matrix = new char[25];
+        int size = 0;
+
+        // Add key letters first
+        for (int i = 0; i < keyword.length(); i++) {
+            int letter = letterIndex(keyword.charAt(i));
+            if (letter < 0) {
+                continue;
+            }
+            if (letter == 'J' - 'A') {
+                letter = 'I' - 'A'; // Treat J as I
+            }
+            if (!used[letter]) {
+                used[letter] = true;
+                matrix[size++] = (char) ('A' + letter);
+            }
+        }
+
+        // Add remaining alphabet letters
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            char c = ALPHABET.charAt(i);
+            if (!used[c - 'A']) {
+                matrix[size++] = c;
+            }
+        }
+
+        return new PlayfairKey(new String(matrix));
+    }
+
+    /**
+     * Compiles a matrix given directly, e.g. by a key search
+     * @param matrix The 25 distinct letters A-Z except J, row by row
+     * @return The compiled key
+     */
+    public static PlayfairKey fromMatrix(String matrix) {
+        if (matrix.length() != 25) {
+            throw new IllegalArgumentException("Playfair matrix must have 25 letters");
+        }
+        boolean[] used = new boolean[26];
+        for (int i = 0; i < 25; i++) {
+            char c = matrix.charAt(i);
+            if (c < 'A' || c > 'Z' || c == 'J' || used[c - 'A']) {
+                throw new IllegalArgumentException("Playfair matrix must use each letter except J once: " + matrix);
+            }
+            used[c - 'A'] = true;
+        }
+        return new PlayfairKey(matrix);
+    }
+
+    /**
+     * @return The 25 matrix letters, row by row
+     */
+    public String getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * @param letter An uppercase letter
+     * @return The letter's matrix index (row * 5 + column), or -1 if it is not A-Z
+     */
+    public int indexOf(char letter) {
+        return letter >= 'A' && letter <= 'Z' ? positions[letter - 'A'] : -1;
+    }
+
+    /**
+     * @return Alphabet index 0-25 of an ASCII letter of either case, -1 otherwise
+     */
+    static int letterIndex(char c) {
+        int upper = c & ~0x20;
+        return c < 128 && upper >= 'A' && upper <= 'Z' ? upper - 'A' : -1;
+    }
+
+    /**
+     * Encrypts a pair of letters given as alphabet indices (0-25)
+     * @return The output pair packed as (first char << 16) | second char
+     */
+    int encryptPair(int first, int second) {
+        return encryptTable[first * 26 + second];
+    }
+
+    /**
+     * Decrypts a pair of letters given as alphabet indices (0-25)
+     * @return The output pair packed as (first char << 16) | second char
+     */
+    int decryptPair(int first, int second) {
+        return decryptTable[first * 26 + second];
+    }
+}
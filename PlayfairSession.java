@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Streaming Playfair encryption/decryption in a single pass. Letter filtering, J-to-I
+ * folding, X insertion between doubled letters and digraph substitution all happen
+ * as characters arrive, with at most one character held back between chunks, so a
+ * text of any length can be processed in fixed-size buffers without building a list
+ * of digraphs. Feeding a text through in pieces and then calling finish() gives the
+ * same result as PlayfairCipher.encrypt/decrypt on the whole text.
+ *
+ * Characters are uppercased one at a time, so characters whose uppercase form is
+ * longer (such as 'ß') can differ from PlayfairCipher. A session is not thread-safe.
+ */
+public class PlayfairSession {
+
+    /** Default buffer size in chars for Reader/Writer transfers */
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+    private final PlayfairKey key;
+    private final boolean decrypt;
+    private boolean hasPending;
+    private char pending;
+
+    /**
+     * Creates a session
+     * @param key The compiled key, e.g. from PlayfairCipher.compileKey
+     * @param decrypt true to decrypt, false to encrypt
+     */
+    public PlayfairSession(PlayfairKey key, boolean decrypt) {
+        this.key = key;
+        this.decrypt = decrypt;
+    }
+
+    /**
+     * @return true if this session decrypts
+     */
+    public boolean isDecrypting() {
+        return decrypt;
+    }
+
+    /**
+     * Drops any held-back character, ready for a new text
+     */
+    public void reset() {
+        hasPending = false;
+    }
+
+    /**
+     * @param inputLength Characters passed to update
+     * @return Output space that update followed by finish can need in the worst case
+     */
+    public static int maxOutput(int inputLength) {
+        // Encryption can double every letter (letter + X); one held-back letter adds a pair
+        return 2 * inputLength + 2;
+    }
+
+    /**
+     * Processes the next chunk of text. Output may lag the input by one character.
+     * @param in Source characters
+     * @param offset Start of the chunk in in
+     * @param length Number of characters
+     * @param out Destination, with room for maxOutput(length) characters (must not overlap in)
+     * @param outOffset Start of the output in out
+     * @return Number of characters written
+     */
+    public int update(char[] in, int offset, int length, char[] out, int outOffset) {
+        int size = outOffset;
+        for (int i = offset; i < offset + length; i++) {
+            size = decrypt ? decryptChar(in[i], out, size) : encryptChar(in[i], out, size);
+        }
+        return size - outOffset;
+    }
+
+    /**
+     * Processes the next chunk of text
+     * @param chunk The next piece of the text
+     * @return The processed characters available so far
+     */
+    public String update(String chunk) {
+        char[] out = new char[maxOutput(chunk.length())];
+        return new String(out, 0, update(chunk.toCharArray(), 0, chunk.length(), out, 0));
+    }
+
+    /**
+     * Ends the text: a held-back plaintext letter is padded with X, a trailing odd
+     * ciphertext character is passed through. The session is then ready for a new text.
+     * @param out Destination with room for 2 characters
+     * @param outOffset Start of the output in out
+     * @return Number of characters written
+     */
+    public int finish(char[] out, int outOffset) {
+        if (!hasPending) {
+            return 0;
+        }
+        hasPending = false;
+        if (decrypt) {
+            out[outOffset] = pending;
+            return 1;
+        }
+        // Last letter, add X as padding
+        writePair(pending, 'X', out, outOffset);
+        return 2;
+    }
+
+    /**
+     * Ends the text
+     * @return The final characters
+     */
+    public String finish() {
+        char[] out = new char[2];
+        return new String(out, 0, finish(out, 0));
+    }
+
+    private static char toUpper(char c) {
+        if (c < 128) {
+            return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+        }
+        return Character.toUpperCase(c);
+    }
+
+    private int encryptChar(char c, char[] out, int size) {
+        // Remove non-letters and replace J with I
+        if (!Character.isLetter(c)) {
+            return size;
+        }
+        c = toUpper(c);
+        if (c == 'J') {
+            c = 'I';
+        }
+
+        if (!hasPending) {
+            pending = c;
+            hasPending = true;
+            return size;
+        }
+        if (pending == c) {
+            // Same letter pair, insert X; c starts the next pair
+            writePair(pending, 'X', out, size);
+            return size + 2;
+        }
+        writePair(pending, c, out, size);
+        hasPending = false;
+        return size + 2;
+    }
+
+    private int decryptChar(char c, char[] out, int size) {
+        c = toUpper(c);
+        if (!hasPending) {
+            pending = c;
+            hasPending = true;
+            return size;
+        }
+        writePair(pending, c, out, size);
+        hasPending = false;
+        return size + 2;
+    }
+
+    /** Writes the substituted pair, or the pair as-is if either character is not in the matrix */
+    private void writePair(char a, char b, char[] out, int size) {
+        int first = PlayfairKey.letterIndex(a);
+        int second = PlayfairKey.letterIndex(b);
+        if (first < 0 || second < 0) {
+            out[size] = a;
+            out[size + 1] = b;
+            return;
+        }
+        int pair = decrypt ? key.decryptPair(first, second) : key.encryptPair(first, second);
+        out[size] = (char) (pair >>> 16);
+        out[size + 1] = (char) pair;
+    }
+
+    /**
+     * Processes a Reader until end of input with the default buffer size, then finishes
+     * the text. Neither side is closed; the writer is flushed.
+     * @param in The text source
+     * @param out The destination
+     * @return Number of characters written
+     * @throws IOException If reading or writing fails
+     */
+    public long transfer(Reader in, Writer out) throws IOException {
+        return transfer(in, out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Processes a Reader until end of input, then finishes the text.
+     * Neither side is closed; the writer is flushed.
+     * @param in The text source
+     * @param out The destination
+     * @param bufferSize Characters read per chunk
+     * @return Number of characters written
+     * @throws IOException If reading or writing fails
+     */
+    public long transfer(Reader in, Writer out, int bufferSize) throws IOException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        char[] input = new char[bufferSize];
+        char[] output = new char[maxOutput(bufferSize)];
+        long total = 0;
+        int read;
+        while ((read = in.read(input)) != -1) {
+            int written = update(input, 0, read, output, 0);
+            out.write(output, 0, written);
+            total += written;
+        }
+        int written = finish(output, 0);
+        out.write(output, 0, written);
+        out.flush();
+        return total + written;
+    }
+}
@@ -0,0 +1,462 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ciphertext-only Playfair key recovery by simulated annealing (for training exercises).
+ * Every core runs independent annealing chains from random 5x5 matrices until the time
+ * limit: each step mutates the matrix (mostly swapping two letters, sometimes swapping
+ * or flipping rows and columns), decrypts the ciphertext and scores it with an
+ * NgramScorer. Better matrices are always kept and worse ones sometimes, less often as
+ * the temperature falls. The best matrix across all chains is reported as it improves.
+ *
+ * Candidates are decrypted straight from the mutable matrix and its letter positions;
+ * compiling full digraph tables for every candidate would cost more than decrypting a
+ * few hundred pairs. The winning matrix is compiled into a PlayfairKey.
+ */
+public class PlayfairSolver {
+
+    /** Mutations tried at each temperature */
+    private static final int ITERATIONS_PER_TEMPERATURE = 10000;
+
+    /** Temperature decrease between levels */
+    private static final double TEMPERATURE_STEP = 0.2;
+
+    // Row, column and previous row/column (with wrap-around) of each matrix index
+    private static final int[] ROW = new int[25];
+    private static final int[] COL = new int[25];
+    private static final int[] PREVIOUS = {4, 0, 1, 2, 3};
+
+    static {
+        for (int i = 0; i < 25; i++) {
+            ROW[i] = i / 5;
+            COL[i] = i % 5;
+        }
+    }
+
+    /**
+     * Receives each new best key while a search runs. Called from worker threads,
+     * one call at a time.
+     */
+    public interface ProgressListener {
+        /**
+         * @param matrix The best matrix so far, row by row
+         * @param score Its score
+         * @param elapsedMillis Time since the search started
+         */
+        void improved(String matrix, double score, double elapsedMillis);
+    }
+
+    /**
+     * Outcome of a search, with convergence statistics
+     */
+    public static final class Result {
+        private final PlayfairKey key;
+        private final String plaintext;
+        private final double score;
+        private final int chains;
+        private final long iterations;
+        private final long acceptedMoves;
+        private final long elapsedNanos;
+        private final long nanosToBest;
+        private final double[] chainScores;
+
+        Result(PlayfairKey key, String plaintext, double score, int chains, long iterations,
+               long acceptedMoves, long elapsedNanos, long nanosToBest, double[] chainScores) {
+            this.key = key;
+            this.plaintext = plaintext;
+            this.score = score;
+            this.chains = chains;
+            this.iterations = iterations;
+            this.acceptedMoves = acceptedMoves;
+            this.elapsedNanos = elapsedNanos;
+            this.nanosToBest = nanosToBest;
+            this.chainScores = chainScores;
+        }
+
+        /**
+         * @return The best key found
+         */
+        public PlayfairKey getKey() {
+            return key;
+        }
+
+        /**
+         * @return The best key's matrix, row by row
+         */
+        public String getMatrix() {
+            return key.getMatrix();
+        }
+
+        /**
+         * @return The ciphertext letters decrypted with the best key (padding X's included)
+         */
+        public String getPlaintext() {
+            return plaintext;
+        }
+
+        /**
+         * @return The best key's score
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * @return Number of annealing chains run, including any cut short by the time limit
+         */
+        public int getChains() {
+            return chains;
+        }
+
+        /**
+         * @return Number of candidate matrices scored
+         */
+        public long getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return Fraction of candidates that replaced their chain's current matrix
+         */
+        public double getAcceptanceRate() {
+            return iterations == 0 ? 0 : (double) acceptedMoves / iterations;
+        }
+
+        /**
+         * @return Wall-clock time of the search in milliseconds
+         */
+        public double getElapsedMillis() {
+            return elapsedNanos / 1e6;
+        }
+
+        /**
+         * @return Time until the best key was first found, in milliseconds
+         */
+        public double getMillisToBest() {
+            return nanosToBest / 1e6;
+        }
+
+        /**
+         * @return The best score reached by each chain, in finishing order (the last
+         *         ones may have been cut short by the time limit). Chains agreeing on
+         *         the top score suggest the search has converged.
+         */
+        public double[] getChainScores() {
+            return chainScores.clone();
+        }
+    }
+
+    /** Best matrix of one search so far, shared by its workers */
+    private static final class Best {
+        private final long start;
+        private final ProgressListener listener;
+        private byte[] matrix;
+        private double score = Double.NEGATIVE_INFINITY;
+        private long nanos;
+
+        Best(long start, ProgressListener listener) {
+            this.start = start;
+            this.listener = listener;
+        }
+
+        /** Records a chain's best matrix if it beats the best so far */
+        synchronized void offer(byte[] candidate, double candidateScore) {
+            if (candidateScore <= score) {
+                return;
+            }
+            matrix = candidate.clone();
+            score = candidateScore;
+            nanos = System.nanoTime() - start;
+            if (listener != null) {
+                listener.improved(matrixString(candidate), candidateScore, nanos / 1e6);
+            }
+        }
+    }
+
+    private final NgramScorer scorer;
+    private final int threads;
+
+    /**
+     * Creates a solver that uses every available core
+     * @param scorer Scores candidate plaintexts (quadgrams work well)
+     */
+    public PlayfairSolver(NgramScorer scorer) {
+        this(scorer, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a solver
+     * @param scorer Scores candidate plaintexts (quadgrams work well)
+     * @param threads Number of worker threads, one chain at a time each
+     */
+    public PlayfairSolver(NgramScorer scorer, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.scorer = scorer;
+        this.threads = threads;
+    }
+
+    /**
+     * Searches for the key of a Playfair ciphertext
+     * @param ciphertext The ciphertext (non-letters are ignored, J is read as I)
+     * @param timeLimitMillis How long to search (each worker finishes at least one chain)
+     * @return The best key found
+     * @throws IllegalArgumentException If the time limit is negative or the ciphertext too short
+     */
+    public Result solve(String ciphertext, long timeLimitMillis) {
+        return solve(ciphertext, timeLimitMillis, null);
+    }
+
+    /**
+     * Searches for the key of a Playfair ciphertext. If the calling thread is
+     * interrupted, the chains stop at their next temperature level, the best key so
+     * far is returned and the interrupt status is kept.
+     * @param ciphertext The ciphertext (non-letters are ignored, J is read as I)
+     * @param timeLimitMillis How long to search (each worker finishes at least one chain)
+     * @param listener Told about each new best key, or null
+     * @return The best key found
+     * @throws IllegalArgumentException If the time limit is negative or the ciphertext too short
+     */
+    public Result solve(String ciphertext, long timeLimitMillis, ProgressListener listener) {
+        if (timeLimitMillis < 0) {
+            throw new IllegalArgumentException("Time limit cannot be negative");
+        }
+        byte[] letters = NgramScorer.letters(ciphertext);
+        int length = letters.length & ~1; // A trailing odd letter cannot be decrypted
+        if (length < 2 * scorer.getN()) {
+            throw new IllegalArgumentException("Ciphertext is too short to score");
+        }
+        for (int i = 0; i < length; i++) {
+            if (letters[i] == 'J' - 'A') {
+                letters[i] = 'I' - 'A';
+            }
+        }
+
+        long start = System.nanoTime();
+        // Moved to now if the caller is interrupted, so the workers wind down early
+        AtomicLong deadline = new AtomicLong(start + timeLimitMillis * 1_000_000L);
+        Best best = new Best(start, listener);
+        AtomicLong iterations = new AtomicLong();
+        AtomicLong accepted = new AtomicLong();
+        List<Double> chainScores = new ArrayList<>();
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom();
+                // At least one chain, so there is a best matrix even if the deadline has passed
+                do {
+                    double chainBest = anneal(letters, length, random, deadline, best, iterations, accepted);
+                    synchronized (chainScores) {
+                        chainScores.add(chainBest);
+                    }
+                } while (System.nanoTime() < deadline.get());
+            }, "playfair-solver-" + t);
+            workers[t].start();
+        }
+
+        Workers.joinAll(workers, () -> deadline.set(System.nanoTime()));
+        long elapsed = System.nanoTime() - start;
+
+        byte[] matrix;
+        double score;
+        long nanosToBest;
+        synchronized (best) {
+            matrix = best.matrix;
+            score = best.score;
+            nanosToBest = best.nanos;
+        }
+        if (matrix == null) {
+            // Only if every worker failed before its first chain ended
+            throw new IllegalStateException("No annealing chain finished");
+        }
+        PlayfairKey key = PlayfairKey.fromMatrix(matrixString(matrix));
+        PlayfairSession session = new PlayfairSession(key, true);
+        char[] text = new char[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = (char) ('A' + letters[i]);
+        }
+        char[] plain = new char[PlayfairSession.maxOutput(length)];
+        int size = session.update(text, 0, length, plain, 0);
+        size += session.finish(plain, size);
+
+        double[] scores;
+        synchronized (chainScores) {
+            scores = chainScores.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+        return new Result(key, new String(plain, 0, size), score, scores.length,
+            iterations.get(), accepted.get(), elapsed, nanosToBest, scores);
+    }
+
+    /**
+     * Runs one annealing chain from a random matrix
+     * @return The best score the chain reached
+     */
+    private double anneal(byte[] ciphertext, int length, SplittableRandom random, AtomicLong deadline, Best best,
+                          AtomicLong iterations, AtomicLong accepted) {
+        byte[] parent = randomMatrix(random);
+        byte[] child = new byte[25];
+        byte[] positions = new byte[26];
+        byte[] plaintext = new byte[length];
+
+        double parentScore = score(parent, positions, ciphertext, plaintext, length);
+        byte[] chainBest = parent.clone();
+        double chainBestScore = parentScore;
+        double offered = Double.NEGATIVE_INFINITY;
+        long steps = 0;
+        long acceptedSteps = 0;
+
+        // Starting temperature scaled to the text length (log10 n-gram scores)
+        double temperature = Math.max(1.0, 10 + 0.087 * (length - 84));
+        for (; temperature > 0 && System.nanoTime() < deadline.get(); temperature -= TEMPERATURE_STEP) {
+            for (int i = 0; i < ITERATIONS_PER_TEMPERATURE; i++) {
+                System.arraycopy(parent, 0, child, 0, 25);
+                mutate(child, random);
+                double childScore = score(child, positions, ciphertext, plaintext, length);
+                double delta = childScore - parentScore;
+
+                if (delta >= 0 || random.nextDouble() < Math.exp(delta / temperature)) {
+                    byte[] swap = parent;
+                    parent = child;
+                    child = swap;
+                    parentScore = childScore;
+                    acceptedSteps++;
+                    if (parentScore > chainBestScore) {
+                        chainBestScore = parentScore;
+                        System.arraycopy(parent, 0, chainBest, 0, 25);
+                    }
+                }
+            }
+            steps += ITERATIONS_PER_TEMPERATURE;
+
+            // Report progress once per temperature level
+            if (chainBestScore > offered) {
+                best.offer(chainBest, chainBestScore);
+                offered = chainBestScore;
+            }
+        }
+        if (chainBestScore > offered) {
+            best.offer(chainBest, chainBestScore);
+        }
+
+        iterations.addAndGet(steps);
+        accepted.addAndGet(acceptedSteps);
+        return chainBestScore;
+    }
+
+    /** Decrypts the ciphertext with a matrix of letter indices and scores the result */
+    private double score(byte[] matrix, byte[] positions, byte[] ciphertext, byte[] plaintext, int length) {
+        for (int i = 0; i < 25; i++) {
+            positions[matrix[i]] = (byte) i;
+        }
+        for (int i = 0; i < length; i += 2) {
+            int a = positions[ciphertext[i]];
+            int b = positions[ciphertext[i + 1]];
+            int rowA = ROW[a], colA = COL[a];
+            int rowB = ROW[b], colB = COL[b];
+            if (rowA == rowB) {
+                // Same row: shift left
+                plaintext[i] = matrix[rowA * 5 + PREVIOUS[colA]];
+                plaintext[i + 1] = matrix[rowB * 5 + PREVIOUS[colB]];
+            } else if (colA == colB) {
+                // Same column: shift up
+                plaintext[i] = matrix[PREVIOUS[rowA] * 5 + colA];
+                plaintext[i + 1] = matrix[PREVIOUS[rowB] * 5 + colB];
+            } else {
+                // Rectangle: swap columns
+                plaintext[i] = matrix[rowA * 5 + colB];
+                plaintext[i + 1] = matrix[rowB * 5 + colA];
+            }
+        }
+        return scorer.score(plaintext, length);
+    }
+
+    private static byte[] randomMatrix(SplittableRandom random) {
+        byte[] matrix = new byte[25];
+        for (int i = 0; i < 25; i++) {
+            matrix[i] = (byte) (PlayfairKey.ALPHABET.charAt(i) - 'A');
+        }
+        for (int i = 24; i > 0; i--) {
+            swap(matrix, i, random.nextInt(i + 1));
+        }
+        return matrix;
+    }
+
+    /** Applies one random change to a matrix */
+    private static void mutate(byte[] matrix, SplittableRandom random) {
+        int choice = random.nextInt(50);
+        int x = random.nextInt(5);
+        int y = random.nextInt(5);
+        switch (choice) {
+            case 0: // Swap two rows
+                for (int col = 0; col < 5; col++) {
+                    swap(matrix, x * 5 + col, y * 5 + col);
+                }
+                break;
+            case 1: // Swap two columns
+                for (int row = 0; row < 5; row++) {
+                    swap(matrix, row * 5 + x, row * 5 + y);
+                }
+                break;
+            case 2: // Reverse the whole matrix
+                for (int i = 0; i < 12; i++) {
+                    swap(matrix, i, 24 - i);
+                }
+                break;
+            case 3: // Flip top to bottom
+                for (int row = 0; row < 2; row++) {
+                    for (int col = 0; col < 5; col++) {
+                        swap(matrix, row * 5 + col, (4 - row) * 5 + col);
+                    }
+                }
+                break;
+            case 4: // Flip left to right
+                for (int row = 0; row < 5; row++) {
+                    for (int col = 0; col < 2; col++) {
+                        swap(matrix, row * 5 + col, row * 5 + 4 - col);
+                    }
+                }
+                break;
+            default: // Swap two letters
+                swap(matrix, random.nextInt(25), random.nextInt(25));
+                break;
+        }
+    }
+
+    private static void swap(byte[] matrix, int i, int j) {
+        byte temp = matrix[i];
+        matrix[i] = matrix[j];
+        matrix[j] = temp;
+    }
+
+    private static String matrixString(byte[] matrix) {
+        char[] letters = new char[25];
+        for (int i = 0; i < 25; i++) {
+            letters[i] = (char) ('A' + matrix[i]);
+        }
+        return new String(letters);
+    }
+
+    /** Demo: recover a keyword matrix from a few hundred letters of ciphertext */
+    public static void main(String[] args) {
+        String plaintext = "The old man explained that he had chosen a method his own father taught him "
+            + "when he was a boy and he had hoped that someone in the family would remember enough of "
+            + "the old games to work it out. He was pleased that his grandson found the answer and "
+            + "asked to hear exactly how it had been done, so they sat together by the fire until "
+            + "late into the night talking about letters and numbers and keys.";
+        String ciphertext = new PlayfairCipher().encrypt(plaintext, "MONARCHY");
+
+        PlayfairSolver solver = new PlayfairSolver(NgramScorer.english(4));
+        Result result = solver.solve(ciphertext, 20000,
+            (matrix, score, millis) -> System.out.println(String.format("%8.0f ms  %.1f  %s", millis, score, matrix)));
+
+        System.out.println("Best matrix: " + result.getMatrix());
+        System.out.println("Plaintext:   " + result.getPlaintext());
+        System.out.println(String.format("%d chains, %d candidates, %.1f%% accepted, best after %.0f ms of %.0f ms",
+            result.getChains(), result.getIterations(), result.getAcceptanceRate() * 100,
+            result.getMillisToBest(), result.getElapsedMillis()));
+    }
+}
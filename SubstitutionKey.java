@@ -0,0 +1,175 @@
+/**
+ * A compiled monoalphabetic substitution key: either a Caesar shift or any 26-letter
+ * substitution alphabet, turned into 128-entry translation tables so that each ASCII
+ * character becomes one array read. Letters of either case map to uppercase
+ * substitutes; every other character, including non-ASCII chars and bytes 0x80-0xFF
+ * (such as UTF-8 multi-byte sequences), passes through unchanged. Instances are
+ * immutable and safe to share between threads.
+ */
+public final class SubstitutionKey {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private final String alphabet;
+    // Shift 0-25 for Caesar keys, -1 for general alphabets
+    private final int shift;
+    private final char[] encryptTable = new char[128];
+    private final char[] decryptTable = new char[128];
+
+    private SubstitutionKey(String alphabet, int shift) {
+        this.alphabet = alphabet;
+        this.shift = shift;
+        for (char c = 0; c < 128; c++) {
+            encryptTable[c] = c;
+            decryptTable[c] = c;
+        }
+        for (int i = 0; i < 26; i++) {
+            char plain = ALPHABET.charAt(i);
+            char cipher = alphabet.charAt(i);
+            encryptTable[plain] = cipher;
+            encryptTable[Character.toLowerCase(plain)] = cipher;
+            decryptTable[cipher] = plain;
+            decryptTable[Character.toLowerCase(cipher)] = plain;
+        }
+    }
+
+    /**
+     * Compiles a Caesar shift
+     * @param shift Positions to move each letter forward (any int, taken mod 26)
+     * @return The compiled key
+     */
+    public static SubstitutionKey ofShift(int shift) {
+        shift = Math.floorMod(shift, 26);
+        return new SubstitutionKey(ALPHABET.substring(shift) + ALPHABET.substring(0, shift), shift);
+    }
+
+    /**
+     * Compiles a substitution alphabet: the i-th letter replaces the i-th letter of
+     * A-Z, e.g. "QWERTYUIOPASDFGHJKLZXCVBNM" turns A into Q
+     * @param alphabet The 26 letters A-Z in any order (either case)
+     * @return The compiled key
+     */
+    public static SubstitutionKey ofAlphabet(String alphabet) {
+        if (alphabet.length() != 26) {
+            throw new IllegalArgumentException("Substitution alphabet must have 26 letters");
+        }
+        String upper = alphabet.toUpperCase();
+        boolean[] used = new boolean[26];
+        for (int i = 0; i < 26; i++) {
+            int letter = ALPHABET.indexOf(upper.charAt(i));
+            if (letter < 0 || used[letter]) {
+                throw new IllegalArgumentException("Substitution alphabet must contain each letter A-Z once");
+            }
+            used[letter] = true;
+        }
+        // An alphabet that happens to be a rotation keeps the shift fast path
+        int shift = upper.charAt(0) - 'A';
+        boolean rotation = upper.equals(ALPHABET.substring(shift) + ALPHABET.substring(0, shift));
+        return new SubstitutionKey(upper, rotation ? shift : -1);
+    }
+
+    /**
+     * Parses an integer shift or a 26-letter substitution alphabet
+     * @param key The key text (surrounding whitespace is ignored)
+     * @return The compiled key
+     */
+    public static SubstitutionKey parse(String key) {
+        String trimmed = key.trim();
+        try {
+            return ofShift(Integer.parseInt(trimmed));
+        } catch (NumberFormatException e) {
+            return ofAlphabet(trimmed);
+        }
+    }
+
+    /**
+     * @return The substitute for each letter A-Z, in order
+     */
+    public String getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * @return The shift 0-25 if this key is a Caesar shift, -1 otherwise
+     */
+    public int getShift() {
+        return shift;
+    }
+
+    /**
+     * Substitutes one character
+     * @param c The character
+     * @return Its uppercase substitute, or c itself if it is not an ASCII letter
+     */
+    public char encrypt(char c) {
+        return c < 128 ? encryptTable[c] : c;
+    }
+
+    /**
+     * Reverses the substitution of one character
+     * @param c The character
+     * @return The uppercase letter it replaced, or c itself if it is not an ASCII letter
+     */
+    public char decrypt(char c) {
+        return c < 128 ? decryptTable[c] : c;
+    }
+
+    /**
+     * Encrypts characters into a buffer (the arrays may be the same)
+     * @param in Source characters (non-ASCII ones are copied unchanged)
+     * @param inOffset Start of the source
+     * @param out Destination
+     * @param outOffset Start of the output
+     * @param length Number of characters
+     */
+    public void encrypt(char[] in, int inOffset, char[] out, int outOffset, int length) {
+        translate(encryptTable, in, inOffset, out, outOffset, length);
+    }
+
+    /**
+     * Decrypts characters into a buffer (the arrays may be the same)
+     * @param in Source characters (non-ASCII ones are copied unchanged)
+     * @param inOffset Start of the source
+     * @param out Destination
+     * @param outOffset Start of the output
+     * @param length Number of characters
+     */
+    public void decrypt(char[] in, int inOffset, char[] out, int outOffset, int length) {
+        translate(decryptTable, in, inOffset, out, outOffset, length);
+    }
+
+    /**
+     * Encrypts bytes in place
+     * @param data The bytes (0x80-0xFF are left unchanged)
+     * @param from First byte
+     * @param to End of the range (exclusive)
+     */
+    public void encrypt(byte[] data, int from, int to) {
+        translate(encryptTable, data, from, to);
+    }
+
+    /**
+     * Decrypts bytes in place
+     * @param data The bytes (0x80-0xFF are left unchanged)
+     * @param from First byte
+     * @param to End of the range (exclusive)
+     */
+    public void decrypt(byte[] data, int from, int to) {
+        translate(decryptTable, data, from, to);
+    }
+
+    private static void translate(char[] table, char[] in, int inOffset, char[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            char c = in[inOffset + i];
+            out[outOffset + i] = c < 128 ? table[c] : c;
+        }
+    }
+
+    private static void translate(char[] table, byte[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = data[i];
+            // Bytes 0x80-0xFF are negative; they are never ASCII letters
+            data[i] = b >= 0 ? (byte) table[b] : b;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Ciphertext-only key recovery for general monoalphabetic substitution (for training
+ * exercises). Every core runs hill climbs from random keys until the time limit: each
+ * climb tries swapping the plaintext letters of every pair of ciphertext letters,
+ * keeps swaps that raise the NgramScorer score and stops when no swap helps. The best
+ * key across all climbs is reported as it improves.
+ *
+ * The ciphertext is reduced once to its distinct n-grams with their counts, and each
+ * ciphertext letter knows which distinct n-grams contain it. A swap only changes the
+ * n-grams containing one of the two swapped letters, so it is scored by re-reading
+ * just those table entries instead of decrypting and scoring the whole text.
+ */
+public class SubstitutionSolver {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    /**
+     * Receives each new best key while a search runs. Called from worker threads,
+     * one call at a time.
+     */
+    public interface ProgressListener {
+        /**
+         * @param alphabet The best substitution alphabet so far
+         * @param score Its score
+         * @param elapsedMillis Time since the search started
+         */
+        void improved(String alphabet, double score, double elapsedMillis);
+    }
+
+    /**
+     * Outcome of a search, with convergence statistics
+     */
+    public static final class Result {
+        private final SubstitutionKey key;
+        private final String plaintext;
+        private final double score;
+        private final int climbs;
+        private final long swaps;
+        private final long elapsedNanos;
+        private final long nanosToBest;
+
+        Result(SubstitutionKey key, String plaintext, double score, int climbs, long swaps,
+               long elapsedNanos, long nanosToBest) {
+            this.key = key;
+            this.plaintext = plaintext;
+            this.score = score;
+            this.climbs = climbs;
+            this.swaps = swaps;
+            this.elapsedNanos = elapsedNanos;
+            this.nanosToBest = nanosToBest;
+        }
+
+        /**
+         * @return The best key found
+         */
+        public SubstitutionKey getKey() {
+            return key;
+        }
+
+        /**
+         * @return The best key's substitution alphabet (usable as a MonoalphabeticCipher key)
+         */
+        public String getAlphabet() {
+            return key.getAlphabet();
+        }
+
+        /**
+         * @return The ciphertext decrypted with the best key
+         */
+        public String getPlaintext() {
+            return plaintext;
+        }
+
+        /**
+         * @return The best key's score
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * @return Number of hill climbs run, including any cut short by the time limit
+         */
+        public int getClimbs() {
+            return climbs;
+        }
+
+        /**
+         * @return Number of letter swaps scored
+         */
+        public long getSwaps() {
+            return swaps;
+        }
+
+        /**
+         * @return Wall-clock time of the search in milliseconds
+         */
+        public double getElapsedMillis() {
+            return elapsedNanos / 1e6;
+        }
+
+        /**
+         * @return Time until the best key was first found, in milliseconds
+         */
+        public double getMillisToBest() {
+            return nanosToBest / 1e6;
+        }
+    }
+
+    /** Best key of one search so far, shared by its workers */
+    private static final class Best {
+        private final long start;
+        private final ProgressListener listener;
+        private byte[] plain;
+        private double score = Double.NEGATIVE_INFINITY;
+        private long nanos;
+
+        Best(long start, ProgressListener listener) {
+            this.start = start;
+            this.listener = listener;
+        }
+
+        /** Records a climb's key if it beats the best so far */
+        synchronized void offer(byte[] candidate, double candidateScore) {
+            if (candidateScore <= score) {
+                return;
+            }
+            plain = candidate.clone();
+            score = candidateScore;
+            nanos = System.nanoTime() - start;
+            if (listener != null) {
+                listener.improved(alphabet(candidate), candidateScore, nanos / 1e6);
+            }
+        }
+    }
+
+    /** The distinct n-grams of a ciphertext, shared read-only by the workers */
+    private static final class Grams {
+        final int n;
+        final int size;
+        // Letters of distinct n-gram g are letters[g * n] to letters[g * n + n - 1]
+        final byte[] letters;
+        final int[] counts;
+        // containing[c] lists the distinct n-grams with ciphertext letter c in them
+        final int[][] containing;
+
+        Grams(byte[] ciphertext, int n) {
+            this.n = n;
+            Map<Integer, Integer> ids = new HashMap<>();
+            int[] ofPosition = new int[ciphertext.length - n + 1];
+            for (int i = 0; i + n <= ciphertext.length; i++) {
+                int gram = 0;
+                for (int j = 0; j < n; j++) {
+                    gram = gram * 26 + ciphertext[i + j];
+                }
+                Integer id = ids.putIfAbsent(gram, ids.size());
+                ofPosition[i] = id == null ? ids.size() - 1 : id;
+            }
+            size = ids.size();
+            letters = new byte[size * n];
+            counts = new int[size];
+            for (int i = 0; i < ofPosition.length; i++) {
+                int id = ofPosition[i];
+                if (counts[id]++ == 0) {
+                    System.arraycopy(ciphertext, i, letters, id * n, n);
+                }
+            }
+
+            // Count each letter once per n-gram it occurs in, then fill the lists
+            int[] lengths = new int[26];
+            forEachLetter((id, c) -> lengths[c]++);
+            containing = new int[26][];
+            for (int c = 0; c < 26; c++) {
+                containing[c] = new int[lengths[c]];
+            }
+            forEachLetter((id, c) -> containing[c][--lengths[c]] = id);
+        }
+
+        /** Calls action once for each distinct letter of each distinct n-gram */
+        private void forEachLetter(BiConsumer<Integer, Integer> action) {
+            boolean[] seen = new boolean[26];
+            for (int id = 0; id < size; id++) {
+                for (int j = id * n; j < id * n + n; j++) {
+                    if (!seen[letters[j]]) {
+                        seen[letters[j]] = true;
+                        action.accept(id, (int) letters[j]);
+                    }
+                }
+                for (int j = id * n; j < id * n + n; j++) {
+                    seen[letters[j]] = false;
+                }
+            }
+        }
+    }
+
+    private final NgramScorer scorer;
+    private final int threads;
+
+    /**
+     * Creates a solver that uses every available core
+     * @param scorer Scores candidate plaintexts (quadgrams work well)
+     */
+    public SubstitutionSolver(NgramScorer scorer) {
+        this(scorer, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a solver
+     * @param scorer Scores candidate plaintexts (quadgrams work well)
+     * @param threads Number of worker threads, one climb at a time each
+     */
+    public SubstitutionSolver(NgramScorer scorer, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.scorer = scorer;
+        this.threads = threads;
+    }
+
+    /**
+     * Searches for the key of a substitution ciphertext
+     * @param ciphertext The ciphertext (non-letters are ignored)
+     * @param timeLimitMillis How long to search (each worker finishes at least one climb)
+     * @return The best key found
+     * @throws IllegalArgumentException If the time limit is negative or the ciphertext too short
+     */
+    public Result solve(String ciphertext, long timeLimitMillis) {
+        return solve(ciphertext, timeLimitMillis, null);
+    }
+
+    /**
+     * Searches for the key of a substitution ciphertext. If the calling thread is
+     * interrupted, the climbs stop after their current pass, the best key so far is
+     * returned and the interrupt status is kept.
+     * @param ciphertext The ciphertext (non-letters are ignored)
+     * @param timeLimitMillis How long to search (each worker finishes at least one climb)
+     * @param listener Told about each new best key, or null
+     * @return The best key found
+     * @throws IllegalArgumentException If the time limit is negative or the ciphertext too short
+     */
+    public Result solve(String ciphertext, long timeLimitMillis, ProgressListener listener) {
+        if (timeLimitMillis < 0) {
+            throw new IllegalArgumentException("Time limit cannot be negative");
+        }
+        byte[] letters = NgramScorer.letters(ciphertext);
+        if (letters.length < 2 * scorer.getN()) {
+            throw new IllegalArgumentException("Ciphertext is too short to score");
+        }
+        Grams grams = new Grams(letters, scorer.getN());
+
+        long start = System.nanoTime();
+        // Moved to now if the caller is interrupted, so the workers wind down early
+        AtomicLong deadline = new AtomicLong(start + timeLimitMillis * 1_000_000L);
+        Best best = new Best(start, listener);
+        AtomicInteger climbs = new AtomicInteger();
+        AtomicLong swaps = new AtomicLong();
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom();
+                do {
+                    climb(grams, random, deadline, best, swaps);
+                    climbs.incrementAndGet();
+                } while (System.nanoTime() < deadline.get());
+            }, "substitution-solver-" + t);
+            workers[t].start();
+        }
+
+        Workers.joinAll(workers, () -> deadline.set(System.nanoTime()));
+        long elapsed = System.nanoTime() - start;
+
+        byte[] plain;
+        double score;
+        long nanosToBest;
+        synchronized (best) {
+            plain = best.plain;
+            score = best.score;
+            nanosToBest = best.nanos;
+        }
+        if (plain == null) {
+            // Only if every worker failed before its first climb ended
+            throw new IllegalStateException("No hill climb finished");
+        }
+        SubstitutionKey key = SubstitutionKey.ofAlphabet(alphabet(plain));
+        String plaintext = new MonoalphabeticCipher().decrypt(ciphertext, key);
+        return new Result(key, plaintext, score, climbs.get(), swaps.get(), elapsed, nanosToBest);
+    }
+
+    /**
+     * Runs one hill climb from a random key. plain[c] is the plaintext letter of
+     * ciphertext letter c; current[g] is distinct n-gram g decrypted with it.
+     */
+    private void climb(Grams grams, SplittableRandom random, AtomicLong deadline, Best best, AtomicLong swaps) {
+        byte[] plain = new byte[26];
+        for (int i = 0; i < 26; i++) {
+            plain[i] = (byte) i;
+        }
+        for (int i = 25; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte temp = plain[i];
+            plain[i] = plain[j];
+            plain[j] = temp;
+        }
+
+        int n = grams.n;
+        int[] current = new int[grams.size];
+        double score = 0;
+        for (int g = 0; g < grams.size; g++) {
+            current[g] = decrypt(grams, g, plain);
+            score += grams.counts[g] * (double) scorer.get(current[g]);
+        }
+
+        // Scratch space for the n-grams one swap touches; mark[g] == stamp when listed
+        int[] affected = new int[grams.size];
+        int[] updated = new int[grams.size];
+        int[] mark = new int[grams.size];
+        int stamp = 0;
+        long tried = 0;
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline.get()) {
+            improved = false;
+            for (int x = 0; x < 25; x++) {
+                for (int y = x + 1; y < 26; y++) {
+                    stamp++;
+                    int count = 0;
+                    for (int g : grams.containing[x]) {
+                        mark[g] = stamp;
+                        affected[count++] = g;
+                    }
+                    for (int g : grams.containing[y]) {
+                        if (mark[g] != stamp) {
+                            affected[count++] = g;
+                        }
+                    }
+                    if (count == 0) {
+                        continue;
+                    }
+
+                    // Score the swap from the touched n-grams only
+                    byte temp = plain[x];
+                    plain[x] = plain[y];
+                    plain[y] = temp;
+                    double delta = 0;
+                    for (int i = 0; i < count; i++) {
+                        int g = affected[i];
+                        updated[i] = decrypt(grams, g, plain);
+                        delta += grams.counts[g] * (double) (scorer.get(updated[i]) - scorer.get(current[g]));
+                    }
+                    tried++;
+
+                    if (delta > 1e-9) {
+                        for (int i = 0; i < count; i++) {
+                            current[affected[i]] = updated[i];
+                        }
+                        score += delta;
+                        improved = true;
+                    } else {
+                        plain[y] = plain[x];
+                        plain[x] = temp;
+                    }
+                }
+            }
+        }
+        swaps.addAndGet(tried);
+
+        // Re-add from scratch so rounding in the running deltas does not accumulate
+        score = 0;
+        for (int g = 0; g < grams.size; g++) {
+            score += grams.counts[g] * (double) scorer.get(current[g]);
+        }
+        best.offer(plain, score);
+    }
+
+    /** Decrypts distinct n-gram g, returning the plaintext n-gram as a base-26 number */
+    private static int decrypt(Grams grams, int g, byte[] plain) {
+        int gram = 0;
+        for (int j = g * grams.n, end = j + grams.n; j < end; j++) {
+            gram = gram * 26 + plain[grams.letters[j]];
+        }
+        return gram;
+    }
+
+    /** The encryption alphabet of a key given as plaintext letters of ciphertext letters */
+    private static String alphabet(byte[] plain) {
+        char[] alphabet = new char[26];
+        for (int c = 0; c < 26; c++) {
+            alphabet[plain[c]] = ALPHABET.charAt(c);
+        }
+        return new String(alphabet);
+    }
+
+    /** Demo: recover a random substitution alphabet from a paragraph of ciphertext */
+    public static void main(String[] args) {
+        String plaintext = "There was a great deal of discussion in the house that winter. Some thought that "
+            + "the journey would be too long and too expensive, and others thought that it would be the "
+            + "adventure of a lifetime. The children spent the long evenings looking at maps and reading "
+            + "about the places they would pass on the way, and their mother made lists of everything "
+            + "they would need to take with them.";
+        String ciphertext = new MonoalphabeticCipher().encrypt(plaintext, "QWERTYUIOPASDFGHJKLZXCVBNM");
+
+        SubstitutionSolver solver = new SubstitutionSolver(NgramScorer.english(4));
+        Result result = solver.solve(ciphertext, 5000,
+            (alphabet, score, millis) -> System.out.println(String.format("%8.0f ms  %.1f  %s", millis, score, alphabet)));
+
+        System.out.println("Best alphabet: " + result.getAlphabet());
+        System.out.println("Plaintext:     " + result.getPlaintext());
+        System.out.println(String.format("%d climbs, %d swaps, best after %.0f ms of %.0f ms",
+            result.getClimbs(), result.getSwaps(), result.getMillisToBest(), result.getElapsedMillis()));
+    }
+}
@@ -0,0 +1,312 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A compiled keyed-transposition permutation of any block width. The key is parsed
+ * and validated once; encryption and decryption are then plain index-copy loops
+ * over precomputed forward and inverse source arrays, so one instance can be reused
+ * for any number of messages. Blocks are independent, so large inputs are split
+ * across the common fork/join pool. Instances are immutable and safe to share
+ * between threads.
+ */
+public final class TranspositionKey {
+
+    /** Characters (or bytes) permuted by one fork/join task; smaller inputs run on the calling thread */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final int width;
+    // Whole blocks per fork/join task, PARALLEL_THRESHOLD in block units
+    private final int parallelBlocks;
+    // encryptSource[p] is the plaintext index copied to ciphertext position p (-1: none)
+    private final int[] encryptSource;
+    // decryptSource[i] is the ciphertext position copied back to plaintext index i (-1: none)
+    private final int[] decryptSource;
+
+    private TranspositionKey(int width, int[] encryptSource, int[] decryptSource) {
+        this.width = width;
+        this.parallelBlocks = Math.max(1, PARALLEL_THRESHOLD / width);
+        this.encryptSource = encryptSource;
+        this.decryptSource = decryptSource;
+    }
+
+    /**
+     * Compiles a permutation given as two rows: plaintext index plaintextIndices[i]
+     * moves to ciphertext position ciphertextPositions[i] (both 1-indexed)
+     * @param plaintextIndices A permutation of 1 to n
+     * @param ciphertextPositions A permutation of 1 to n
+     * @return The compiled key
+     */
+    public static TranspositionKey of(int[] plaintextIndices, int[] ciphertextPositions) {
+        int width = plaintextIndices.length;
+        if (width == 0 || ciphertextPositions.length != width) {
+            throw new IllegalArgumentException("Both key rows must have the same, non-zero number of values");
+        }
+        checkPermutation(plaintextIndices, "Plaintext indices");
+        checkPermutation(ciphertextPositions, "Ciphertext positions");
+        return compile(plaintextIndices, ciphertextPositions);
+    }
+
+    /**
+     * Compiles a permutation from n values giving each plaintext index's ciphertext
+     * position in order, i.e. rows "1 2 ... n" and positions
+     * @param ciphertextPositions A permutation of 1 to n
+     * @return The compiled key
+     */
+    public static TranspositionKey of(int[] ciphertextPositions) {
+        int[] identity = new int[ciphertextPositions.length];
+        for (int i = 0; i < identity.length; i++) {
+            identity[i] = i + 1;
+        }
+        return of(identity, ciphertextPositions);
+    }
+
+    /**
+     * Parses and compiles a two-row key such as "3 1 4 5 2\n1 2 3 4 5" (rows may
+     * also be separated by '|')
+     * @param key The key text
+     * @return The compiled key
+     */
+    public static TranspositionKey parse(String key) {
+        int[][] rows = parseRows(key);
+        return of(rows[0], rows[1]);
+    }
+
+    /**
+     * Parses a two-row key the way KeyedTranspositionCipher always has: values
+     * outside 1 to n are skipped and repeated values overwrite earlier ones, leaving
+     * NUL characters in unfilled positions
+     * @param key The key text
+     * @return The compiled key
+     */
+    static TranspositionKey parseLenient(String key) {
+        int[][] rows = parseRows(key);
+        if (rows[0].length != rows[1].length) {
+            throw new IllegalArgumentException("Both key rows must have the same number of values");
+        }
+        return compile(rows[0], rows[1]);
+    }
+
+    /** Splits the key into two rows of integers */
+    private static int[][] parseRows(String key) {
+        // Parse key into two rows
+        String[] keyLines = key.trim().split("\n");
+        if (keyLines.length < 2) {
+            keyLines = key.trim().split("\\|");
+        }
+        if (keyLines.length < 2) {
+            throw new IllegalArgumentException("Key must have two rows");
+        }
+
+        int[][] rows = new int[2][];
+        for (int row = 0; row < 2; row++) {
+            String[] values = keyLines[row].trim().split("\\s+");
+            rows[row] = new int[values.length];
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    rows[row][i] = Integer.parseInt(values[i]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Key rows must contain integers", e);
+            }
+        }
+        return rows;
+    }
+
+    private static void checkPermutation(int[] values, String name) {
+        boolean[] seen = new boolean[values.length];
+        for (int value : values) {
+            if (value < 1 || value > values.length || seen[value - 1]) {
+                throw new IllegalArgumentException(name + " must be a permutation of 1 to " + values.length);
+            }
+            seen[value - 1] = true;
+        }
+    }
+
+    private static TranspositionKey compile(int[] plaintextIndices, int[] ciphertextPositions) {
+        int width = plaintextIndices.length;
+        int[] encryptSource = new int[width];
+        int[] decryptSource = new int[width];
+        Arrays.fill(encryptSource, -1);
+        Arrays.fill(decryptSource, -1);
+        for (int i = 0; i < width; i++) {
+            int plainIndex = plaintextIndices[i] - 1;
+            int cipherPos = ciphertextPositions[i] - 1;
+            if (plainIndex >= 0 && plainIndex < width && cipherPos >= 0 && cipherPos < width) {
+                encryptSource[cipherPos] = plainIndex;
+                decryptSource[plainIndex] = cipherPos;
+            }
+        }
+        return new TranspositionKey(width, encryptSource, decryptSource);
+    }
+
+    /**
+     * @return Characters per block
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return For each ciphertext position, the plaintext index it takes (0-indexed, -1 for none)
+     */
+    public int[] getEncryptSource() {
+        return encryptSource.clone();
+    }
+
+    /**
+     * @return For each plaintext index, the ciphertext position it comes from (0-indexed, -1 for none)
+     */
+    public int[] getDecryptSource() {
+        return decryptSource.clone();
+    }
+
+    /**
+     * Encrypts whole blocks, in parallel for large inputs
+     * @param in Source characters
+     * @param inOffset Start of the first block in in
+     * @param out Destination (must not overlap the source blocks)
+     * @param outOffset Start of the output in out
+     * @param blocks Number of blocks
+     */
+    public void encryptBlocks(char[] in, int inOffset, char[] out, int outOffset, int blocks) {
+        permute(in, inOffset, out, outOffset, blocks, encryptSource);
+    }
+
+    /**
+     * Decrypts whole blocks, in parallel for large inputs
+     * @param in Source characters
+     * @param inOffset Start of the first block in in
+     * @param out Destination (must not overlap the source blocks)
+     * @param outOffset Start of the output in out
+     * @param blocks Number of blocks
+     */
+    public void decryptBlocks(char[] in, int inOffset, char[] out, int outOffset, int blocks) {
+        permute(in, inOffset, out, outOffset, blocks, decryptSource);
+    }
+
+    /**
+     * Encrypts whole blocks of bytes, in parallel for large inputs
+     * @param in Source bytes
+     * @param inOffset Start of the first block in in
+     * @param out Destination (must not overlap the source blocks)
+     * @param outOffset Start of the output in out
+     * @param blocks Number of blocks
+     */
+    public void encryptBlocks(byte[] in, int inOffset, byte[] out, int outOffset, int blocks) {
+        permute(in, inOffset, out, outOffset, blocks, encryptSource);
+    }
+
+    /**
+     * Decrypts whole blocks of bytes, in parallel for large inputs
+     * @param in Source bytes
+     * @param inOffset Start of the first block in in
+     * @param out Destination (must not overlap the source blocks)
+     * @param outOffset Start of the output in out
+     * @param blocks Number of blocks
+     */
+    public void decryptBlocks(byte[] in, int inOffset, byte[] out, int outOffset, int blocks) {
+        permute(in, inOffset, out, outOffset, blocks, decryptSource);
+    }
+
+    /**
+     * Encrypts whole blocks in place, in parallel for large inputs
+     * @param data The characters
+     * @param offset Start of the first block
+     * @param blocks Number of blocks
+     */
+    public void encryptInPlace(char[] data, int offset, int blocks) {
+        permuteInPlace(data, offset, blocks, encryptSource);
+    }
+
+    /**
+     * Decrypts whole blocks in place, in parallel for large inputs
+     * @param data The characters
+     * @param offset Start of the first block
+     * @param blocks Number of blocks
+     */
+    public void decryptInPlace(char[] data, int offset, int blocks) {
+        permuteInPlace(data, offset, blocks, decryptSource);
+    }
+
+    /**
+     * Encrypts whole blocks of bytes in place, in parallel for large inputs
+     * @param data The bytes
+     * @param offset Start of the first block
+     * @param blocks Number of blocks
+     */
+    public void encryptInPlace(byte[] data, int offset, int blocks) {
+        permuteInPlace(data, offset, blocks, encryptSource);
+    }
+
+    /**
+     * Decrypts whole blocks of bytes in place, in parallel for large inputs
+     * @param data The bytes
+     * @param offset Start of the first block
+     * @param blocks Number of blocks
+     */
+    public void decryptInPlace(byte[] data, int offset, int blocks) {
+        permuteInPlace(data, offset, blocks, decryptSource);
+    }
+
+    private void permute(char[] in, int inOffset, char[] out, int outOffset, int blocks, int[] source) {
+        Objects.checkFromIndexSize(inOffset, blocks * width, in.length);
+        Objects.checkFromIndexSize(outOffset, blocks * width, out.length);
+        BlockRanges.forEach(blocks, parallelBlocks, (fromBlock, toBlock) -> {
+            for (int block = fromBlock; block < toBlock; block++) {
+                int from = inOffset + block * width;
+                int to = outOffset + block * width;
+                for (int p = 0; p < width; p++) {
+                    int s = source[p];
+                    out[to + p] = s < 0 ? 0 : in[from + s];
+                }
+            }
+        });
+    }
+
+    private void permute(byte[] in, int inOffset, byte[] out, int outOffset, int blocks, int[] source) {
+        Objects.checkFromIndexSize(inOffset, blocks * width, in.length);
+        Objects.checkFromIndexSize(outOffset, blocks * width, out.length);
+        BlockRanges.forEach(blocks, parallelBlocks, (fromBlock, toBlock) -> {
+            for (int block = fromBlock; block < toBlock; block++) {
+                int from = inOffset + block * width;
+                int to = outOffset + block * width;
+                for (int p = 0; p < width; p++) {
+                    int s = source[p];
+                    out[to + p] = s < 0 ? 0 : in[from + s];
+                }
+            }
+        });
+    }
+
+    /** Copies each block to a per-range scratch block, then permutes it back */
+    private void permuteInPlace(char[] data, int offset, int blocks, int[] source) {
+        Objects.checkFromIndexSize(offset, blocks * width, data.length);
+        BlockRanges.forEach(blocks, parallelBlocks, (fromBlock, toBlock) -> {
+            char[] scratch = new char[width];
+            for (int block = fromBlock; block < toBlock; block++) {
+                int start = offset + block * width;
+                System.arraycopy(data, start, scratch, 0, width);
+                for (int p = 0; p < width; p++) {
+                    int s = source[p];
+                    data[start + p] = s < 0 ? 0 : scratch[s];
+                }
+            }
+        });
+    }
+
+    /** Copies each block to a per-range scratch block, then permutes it back */
+    private void permuteInPlace(byte[] data, int offset, int blocks, int[] source) {
+        Objects.checkFromIndexSize(offset, blocks * width, data.length);
+        BlockRanges.forEach(blocks, parallelBlocks, (fromBlock, toBlock) -> {
+            byte[] scratch = new byte[width];
+            for (int block = fromBlock; block < toBlock; block++) {
+                int start = offset + block * width;
+                System.arraycopy(data, start, scratch, 0, width);
+                for (int p = 0; p < width; p++) {
+                    int s = source[p];
+                    data[start + p] = s < 0 ? 0 : scratch[s];
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,544 @@
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ciphertext-only key recovery for KeyedTranspositionCipher (for training exercises).
+ * The ciphertext is read as the cipher reads it: spaces are dropped and every other
+ * character, punctuation included, is a symbol that moves with its column. Every
+ * block width that divides the number of symbols is tried. A candidate key is a
+ * column order: plaintext position i of every block is read from ciphertext column
+ * order[i]. Because a bigram score only looks at neighbouring letters (pairs with a
+ * non-letter are skipped), it is the sum of per-column-pair scores precomputed once
+ * per width (how well column a reads before column b, across all blocks), so a
+ * candidate costs one table read per column instead of a full decryption.
+ *
+ * Widths up to EXHAUSTIVE_MAX_WIDTH are searched completely by branch and bound: a
+ * fork/join task per column-order prefix, with subtrees skipped when even the best
+ * remaining column pairs cannot reach the shortlist. Wider blocks are hill-climbed from
+ * random orders until the time limit. The shortlisted orders of every width are then
+ * decrypted and ranked with the main scorer (quadgrams work well).
+ */
+public class TranspositionSolver {
+
+    /** Widest blocks that are searched exhaustively (9! = 362880 orders) */
+    public static final int EXHAUSTIVE_MAX_WIDTH = 9;
+
+    /** Orders kept per width for final scoring */
+    private static final int SHORTLIST_SIZE = 32;
+
+    /** Prefix length below which branch-and-bound tasks fork their subtrees */
+    private static final int FORK_DEPTH = 2;
+
+    /** Result of a search */
+    public static final class Result {
+        private final TranspositionKey key;
+        private final String plaintext;
+        private final double score;
+        private final boolean exhaustive;
+        private final long candidates;
+        private final long pruned;
+        private final long elapsedNanos;
+
+        Result(TranspositionKey key, String plaintext, double score, boolean exhaustive,
+               long candidates, long pruned, long elapsedNanos) {
+            this.key = key;
+            this.plaintext = plaintext;
+            this.score = score;
+            this.exhaustive = exhaustive;
+            this.candidates = candidates;
+            this.pruned = pruned;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return The best key
+         */
+        public TranspositionKey getKey() {
+            return key;
+        }
+
+        /**
+         * @return The best key in KeyedTranspositionCipher's two-row form
+         */
+        public String getKeyString() {
+            int[] source = key.getDecryptSource();
+            StringBuilder top = new StringBuilder();
+            StringBuilder bottom = new StringBuilder();
+            for (int i = 0; i < source.length; i++) {
+                top.append(i == 0 ? "" : " ").append(i + 1);
+                bottom.append(i == 0 ? "" : " ").append(source[i] + 1);
+            }
+            return top + "\n" + bottom;
+        }
+
+        /**
+         * @return The ciphertext decrypted with the best key
+         */
+        public String getPlaintext() {
+            return plaintext;
+        }
+
+        /**
+         * @return The best key's score under the main scorer
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * @return true if every width considered was searched completely
+         */
+        public boolean isExhaustive() {
+            return exhaustive;
+        }
+
+        /**
+         * @return Number of column orders and order prefixes scored
+         */
+        public long getCandidates() {
+            return candidates;
+        }
+
+        /**
+         * @return Number of order prefixes whose subtrees were skipped
+         */
+        public long getPruned() {
+            return pruned;
+        }
+
+        /**
+         * @return Wall-clock time of the search in milliseconds
+         */
+        public double getElapsedMillis() {
+            return elapsedNanos / 1e6;
+        }
+    }
+
+    /** Best column orders of one width by bigram score, shared by its tasks */
+    private static final class Shortlist {
+        private final int[][] orders = new int[SHORTLIST_SIZE][];
+        private final double[] scores = new double[SHORTLIST_SIZE];
+        private int size;
+        // Score an order must beat to get in; read without locking for pruning
+        private volatile double threshold = Double.NEGATIVE_INFINITY;
+
+        synchronized void offer(int[] order, double score) {
+            if (score <= threshold) {
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                if (Arrays.equals(orders[i], order)) {
+                    return;
+                }
+            }
+            int slot = size < SHORTLIST_SIZE ? size++ : worst();
+            orders[slot] = order.clone();
+            scores[slot] = score;
+            if (size == SHORTLIST_SIZE) {
+                threshold = scores[worst()];
+            }
+        }
+
+        private int worst() {
+            int worst = 0;
+            for (int i = 1; i < size; i++) {
+                if (scores[i] < scores[worst]) {
+                    worst = i;
+                }
+            }
+            return worst;
+        }
+
+        synchronized List<int[]> orders() {
+            return new ArrayList<>(Arrays.asList(orders).subList(0, size));
+        }
+    }
+
+    /** Column-pair bigram scores of one width */
+    private static final class Columns {
+        final int width;
+        // inner[a * width + b]: column b read right after column a, summed over blocks
+        final double[] inner;
+        // across[a * width + b]: column a ending one block, column b starting the next
+        final double[] across;
+        // Best inner score leaving each column, best across score into each column
+        final double[] bestOut;
+        final double[] bestInto;
+
+        /** @param ciphertext Letter index 0-25 of each symbol, -1 for non-letters */
+        Columns(byte[] ciphertext, int width, NgramScorer bigrams) {
+            this.width = width;
+            int blocks = ciphertext.length / width;
+            inner = new double[width * width];
+            across = new double[width * width];
+            for (int block = 0; block < blocks; block++) {
+                int base = block * width;
+                for (int a = 0; a < width; a++) {
+                    if (ciphertext[base + a] < 0) {
+                        continue;
+                    }
+                    int first = ciphertext[base + a] * 26;
+                    for (int b = 0; b < width; b++) {
+                        if (a != b && ciphertext[base + b] >= 0) {
+                            inner[a * width + b] += bigrams.get(first + ciphertext[base + b]);
+                        }
+                        if (block + 1 < blocks && ciphertext[base + width + b] >= 0) {
+                            across[a * width + b] += bigrams.get(first + ciphertext[base + width + b]);
+                        }
+                    }
+                }
+            }
+            bestOut = new double[width];
+            bestInto = new double[width];
+            Arrays.fill(bestOut, Double.NEGATIVE_INFINITY);
+            Arrays.fill(bestInto, Double.NEGATIVE_INFINITY);
+            for (int a = 0; a < width; a++) {
+                for (int b = 0; b < width; b++) {
+                    if (a != b) {
+                        bestOut[a] = Math.max(bestOut[a], inner[a * width + b]);
+                    }
+                    bestInto[b] = Math.max(bestInto[b], blocks > 1 ? across[a * width + b] : 0);
+                }
+            }
+        }
+
+        /** Bigram score of a whole column order */
+        double score(int[] order) {
+            double score = across[order[width - 1] * width + order[0]];
+            for (int i = 1; i < width; i++) {
+                score += inner[order[i - 1] * width + order[i]];
+            }
+            return score;
+        }
+    }
+
+    /** Extends one column-order prefix, forking its subtrees while the prefix is short */
+    private static final class PrefixTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient Columns columns;
+        private final transient Shortlist shortlist;
+        private final transient AtomicLong candidates;
+        private final transient AtomicLong pruned;
+        private final transient int[] order;
+        private final int depth;
+        private final int used;
+        private final double partial;
+
+        PrefixTask(Columns columns, Shortlist shortlist, AtomicLong candidates, AtomicLong pruned,
+                   int[] order, int depth, int used, double partial) {
+            this.columns = columns;
+            this.shortlist = shortlist;
+            this.candidates = candidates;
+            this.pruned = pruned;
+            this.order = order;
+            this.depth = depth;
+            this.used = used;
+            this.partial = partial;
+        }
+
+        @Override
+        protected void compute() {
+            int width = columns.width;
+            if (depth >= FORK_DEPTH || depth == width) {
+                long[] counts = new long[2];
+                search(order.clone(), depth, used, partial, counts);
+                candidates.addAndGet(counts[0]);
+                pruned.addAndGet(counts[1]);
+                return;
+            }
+            List<PrefixTask> children = new ArrayList<>();
+            for (int column = 0; column < width; column++) {
+                if ((used & (1 << column)) == 0) {
+                    int[] child = order.clone();
+                    child[depth] = column;
+                    double score = depth == 0 ? 0 : partial + columns.inner[order[depth - 1] * width + column];
+                    children.add(new PrefixTask(columns, shortlist, candidates, pruned,
+                        child, depth + 1, used | (1 << column), score));
+                }
+            }
+            invokeAll(children);
+        }
+
+        /** Depth-first branch and bound below a prefix; counts[0] scored, counts[1] pruned */
+        private void search(int[] order, int depth, int used, double partial, long[] counts) {
+            int width = columns.width;
+            counts[0]++;
+            if (depth == width) {
+                shortlist.offer(order, partial + columns.across[order[width - 1] * width + order[0]]);
+                return;
+            }
+            if (depth > 0 && bound(order, depth, used, partial) <= shortlist.threshold) {
+                counts[1]++;
+                return;
+            }
+            for (int column = 0; column < width; column++) {
+                if ((used & (1 << column)) == 0) {
+                    order[depth] = column;
+                    double score = depth == 0 ? 0 : partial + columns.inner[order[depth - 1] * width + column];
+                    search(order, depth + 1, used | (1 << column), score, counts);
+                }
+            }
+        }
+
+        /**
+         * Highest score any completion of a prefix could reach: each remaining pair
+         * starts at the tail or an unplaced column, all but one of which lead somewhere
+         */
+        private double bound(int[] order, int depth, int used, double partial) {
+            int width = columns.width;
+            int tail = order[depth - 1];
+            double sum = columns.bestOut[tail];
+            double lowest = sum;
+            for (int column = 0; column < width; column++) {
+                if ((used & (1 << column)) == 0) {
+                    sum += columns.bestOut[column];
+                    lowest = Math.min(lowest, columns.bestOut[column]);
+                }
+            }
+            return partial + sum - lowest + columns.bestInto[order[0]];
+        }
+    }
+
+    /** Restarts hill climbs from random orders until the deadline */
+    private static final class ClimbTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient Columns columns;
+        private final transient Shortlist shortlist;
+        private final transient AtomicLong candidates;
+        private final long deadline;
+
+        ClimbTask(Columns columns, Shortlist shortlist, AtomicLong candidates, long deadline) {
+            this.columns = columns;
+            this.shortlist = shortlist;
+            this.candidates = candidates;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void compute() {
+            int width = columns.width;
+            SplittableRandom random = new SplittableRandom();
+            int[] parent = new int[width];
+            int[] child = new int[width];
+            int patience = 20 * width * width;
+            long steps = 0;
+            do {
+                for (int i = 0; i < width; i++) {
+                    parent[i] = i;
+                }
+                for (int i = width - 1; i > 0; i--) {
+                    swap(parent, i, random.nextInt(i + 1));
+                }
+                double parentScore = columns.score(parent);
+                for (int stale = 0; stale < patience; stale++) {
+                    System.arraycopy(parent, 0, child, 0, width);
+                    mutate(child, random);
+                    double childScore = columns.score(child);
+                    steps++;
+                    // Equal scores are accepted to walk across plateaus
+                    if (childScore >= parentScore) {
+                        if (childScore > parentScore) {
+                            stale = -1;
+                        }
+                        int[] swap = parent;
+                        parent = child;
+                        child = swap;
+                        parentScore = childScore;
+                    }
+                }
+                shortlist.offer(parent, parentScore);
+            } while (System.nanoTime() < deadline);
+            candidates.addAndGet(steps);
+        }
+
+        /** Swaps two columns, reverses a run or moves a run elsewhere */
+        private static void mutate(int[] order, SplittableRandom random) {
+            int width = order.length;
+            int from = random.nextInt(width);
+            int to = random.nextInt(width);
+            switch (random.nextInt(3)) {
+                case 0:
+                    swap(order, from, to);
+                    break;
+                case 1:
+                    for (int i = Math.min(from, to), j = Math.max(from, to); i < j; i++, j--) {
+                        swap(order, i, j);
+                    }
+                    break;
+                default:
+                    // Rotate order[from..to] by one, moving the end column to the front
+                    int lo = Math.min(from, to);
+                    int hi = Math.max(from, to);
+                    int moved = order[hi];
+                    System.arraycopy(order, lo, order, lo + 1, hi - lo);
+                    order[lo] = moved;
+                    break;
+            }
+        }
+    }
+
+    private final NgramScorer bigrams;
+    private final NgramScorer scorer;
+    private final int threads;
+
+    /**
+     * Creates a solver that uses every available core and the built-in English bigrams
+     * @param scorer Ranks the shortlisted decryptions (quadgrams work well)
+     */
+    public TranspositionSolver(NgramScorer scorer) {
+        this(NgramScorer.english(2), scorer, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a solver
+     * @param bigrams Bigram scorer for the column-order search
+     * @param scorer Ranks the shortlisted decryptions (quadgrams work well)
+     * @param threads Number of worker threads
+     */
+    public TranspositionSolver(NgramScorer bigrams, NgramScorer scorer, int threads) {
+        if (bigrams.getN() != 2) {
+            throw new IllegalArgumentException("Column-order search needs a bigram scorer");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        this.bigrams = bigrams;
+        this.scorer = scorer;
+        this.threads = threads;
+    }
+
+    /**
+     * Searches for the key of a KeyedTranspositionCipher ciphertext
+     * @param ciphertext The ciphertext (spaces are ignored, other characters are symbols)
+     * @param maxWidth Widest block to try
+     * @param timeLimitMillis Time for the hill climbs of widths above EXHAUSTIVE_MAX_WIDTH,
+     *                        shared between them; narrower widths always run to completion
+     * @return The best key found
+     * @throws IllegalArgumentException If the time limit is negative, maxWidth is above 31
+     *         or no width from 2 to maxWidth divides the number of symbols
+     */
+    public Result solve(String ciphertext, int maxWidth, long timeLimitMillis) {
+        if (timeLimitMillis < 0) {
+            throw new IllegalArgumentException("Time limit cannot be negative");
+        }
+        if (maxWidth > 31) {
+            throw new IllegalArgumentException("Block width must be at most 31");
+        }
+        // Clean the text as KeyedTranspositionCipher.decrypt does, then note which symbols are letters
+        char[] symbols = ciphertext.toLowerCase().replace(" ", "").toCharArray();
+        byte[] letters = new byte[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            letters[i] = (byte) NgramScorer.letterIndex(symbols[i]);
+        }
+
+        List<Integer> widths = new ArrayList<>();
+        int wide = 0;
+        for (int width = 2; width <= maxWidth && width <= symbols.length; width++) {
+            if (symbols.length % width == 0) {
+                widths.add(width);
+                if (width > EXHAUSTIVE_MAX_WIDTH) {
+                    wide++;
+                }
+            }
+        }
+        if (widths.isEmpty()) {
+            throw new IllegalArgumentException("No block width up to " + maxWidth
+                + " divides the ciphertext length " + symbols.length);
+        }
+
+        long start = System.nanoTime();
+        long budget = wide == 0 ? 0 : timeLimitMillis * 1_000_000L / wide;
+        AtomicLong candidates = new AtomicLong();
+        AtomicLong pruned = new AtomicLong();
+        int[] bestOrder = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        char[] plaintext = new char[symbols.length];
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int width : widths) {
+                Columns columns = new Columns(letters, width, bigrams);
+                Shortlist shortlist = new Shortlist();
+                if (width <= EXHAUSTIVE_MAX_WIDTH) {
+                    pool.invoke(new PrefixTask(columns, shortlist, candidates, pruned,
+                        new int[width], 0, 0, 0));
+                } else {
+                    long deadline = System.nanoTime() + budget;
+                    List<ClimbTask> climbs = new ArrayList<>();
+                    for (int t = 0; t < threads; t++) {
+                        climbs.add(new ClimbTask(columns, shortlist, candidates, deadline));
+                    }
+                    pool.invoke(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            invokeAll(climbs);
+                        }
+                    });
+                }
+
+                // Rank the shortlist by full decryption under the main scorer
+                for (int[] order : shortlist.orders()) {
+                    toKey(order).decryptBlocks(symbols, 0, plaintext, 0, symbols.length / width);
+                    double score = scorer.score(CharBuffer.wrap(plaintext));
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestOrder = order;
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        TranspositionKey key = toKey(bestOrder);
+        String plain = new KeyedTranspositionCipher().decrypt(ciphertext, key);
+        return new Result(key, plain, bestScore, wide == 0, candidates.get(), pruned.get(), elapsed);
+    }
+
+    /** The key whose plaintext position i reads ciphertext column order[i] */
+    private static TranspositionKey toKey(int[] order) {
+        int[] positions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            positions[i] = order[i] + 1;
+        }
+        return TranspositionKey.of(positions);
+    }
+
+    private static void swap(int[] order, int i, int j) {
+        int temp = order[i];
+        order[i] = order[j];
+        order[j] = temp;
+    }
+
+    /** Demo: break a width-8 key exhaustively and a width-12 key by hill climbing */
+    public static void main(String[] args) {
+        String plaintext = "Many of the ideas they talked about that night are still in use today although the "
+            + "machines that carry our messages work much faster than any person with a pencil. A modern "
+            + "computer can try millions of keys every second and a method that would have kept a secret "
+            + "for a hundred years can now be broken before a cup of tea has gone cold.";
+        KeyedTranspositionCipher cipher = new KeyedTranspositionCipher();
+        TranspositionSolver solver = new TranspositionSolver(NgramScorer.english(4));
+
+        String[] keys = {
+            "1 2 3 4 5 6 7 8\n6 3 8 1 5 2 7 4",
+            "1 2 3 4 5 6 7 8 9 10 11 12\n9 4 12 1 7 3 11 6 2 10 5 8"
+        };
+        for (String key : keys) {
+            String ciphertext = cipher.encrypt(plaintext, key);
+            Result result = solver.solve(ciphertext, 12, 5000);
+            System.out.println("Key:\n" + result.getKeyString());
+            System.out.println("Plaintext: " + result.getPlaintext());
+            System.out.println(String.format("%d candidates, %d pruned, %.0f ms%s",
+                result.getCandidates(), result.getPruned(), result.getElapsedMillis(),
+                result.isExhaustive() ? " (exhaustive)" : ""));
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Triple DES (EDE) Cipher Implementation
+ * Encrypts each block as E(K3, D(K2, E(K1, block))) using DESCipher's block rounds.
+ * A 16-byte key gives two-key Triple DES (K3 = K1); a 24-byte key gives three keys.
+ * Other lengths are rejected rather than zero padded into a weak key.
+ * (Educational Use Only – Not for Production Security)
+ */
+public class TripleDESCipher implements EncryptionAlgorithm {
+
+    private final DESCipher des;
+
+    /** Creates a Triple DES cipher that uses DESCipher's shared key-schedule cache */
+    public TripleDESCipher() {
+        this(new DESCipher());
+    }
+
+    /**
+     * Creates a Triple DES cipher
+     * @param des The DES cipher whose key-schedule cache holds the three schedules
+     */
+    public TripleDESCipher(DESCipher des) {
+        this.des = des;
+    }
+
+    /**
+     * Splits the key into K1, K2 and K3 (8 bytes each) and looks up their schedules
+     * @param key The key string (UTF-8 bytes 0-7, 8-15 and 16-23)
+     * @return The schedules for K1, K2 and K3
+     * @throws IllegalArgumentException If the key is not 16 or 24 bytes in UTF-8
+     */
+    private DESKeySchedule[] keySchedules(String key) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        checkKeyLength(k.length);
+        DESKeySchedule k1 = des.keySchedule(DESCipher.readBlock(k, 0));
+        DESKeySchedule k2 = des.keySchedule(DESCipher.readBlock(k, 8));
+        DESKeySchedule k3 = k.length > 16 ? des.keySchedule(DESCipher.readBlock(k, 16)) : k1;
+        return new DESKeySchedule[]{k1, k2, k3};
+    }
+
+    private static void checkKeyLength(int keyBytes) {
+        // A short key would leave K2 (or K3) zero padded, silently weakening the cipher
+        if (keyBytes != 16 && keyBytes != 24) {
+            throw new IllegalArgumentException("Triple DES key must be 16 or 24 bytes in UTF-8, got " + keyBytes);
+        }
+    }
+
+    /**
+     * Encrypts plaintext using Triple DES in ECB mode
+     * @param plaintext The text to encrypt (UTF-8, zero padded to whole blocks)
+     * @param key The 16 or 24 character key
+     * @return The ciphertext in hex
+     * @throws IllegalArgumentException If the key is not 16 or 24 bytes in UTF-8
+     */
+    @Override
+    public String encrypt(String plaintext, String key) {
+        return DESCipher.toHex(encryptBytes(plaintext.getBytes(StandardCharsets.UTF_8), key));
+    }
+
+    /**
+     * Decrypts hex ciphertext using Triple DES in ECB mode
+     * @param ciphertext The ciphertext in hex
+     * @param key The 16 or 24 character key
+     * @return The decrypted plaintext
+     * @throws IllegalArgumentException If the key is not 16 or 24 bytes in UTF-8
+     */
+    @Override
+    public String decrypt(String ciphertext, String key) {
+        byte[] data = DESCipher.fromHex(ciphertext);
+        ede(data, 0, data, 0, data.length, keySchedules(key), true);
+        return DESCipher.bytesToUTF(data);
+    }
+
+    /**
+     * Encrypts bytes in ECB mode, zero padding the final block
+     * @param data The plaintext bytes
+     * @param key The 16 or 24 character key
+     * @return The ciphertext bytes, a whole number of blocks
+     * @throws IllegalArgumentException If the key is not 16 or 24 bytes in UTF-8
+     */
+    public byte[] encryptBytes(byte[] data, String key) {
+        byte[] out = new byte[DESCipher.paddedLength(data.length)];
+        ede(data, 0, out, 0, data.length, keySchedules(key), false);
+        return out;
+    }
+
+    /**
+     * Decrypts bytes in ECB mode
+     * @param data The ciphertext bytes, a whole number of blocks
+     * @param key The 16 or 24 character key
+     * @return The plaintext bytes, including any zero padding
+     * @throws IllegalArgumentException If the key is not 16 or 24 bytes in UTF-8, or
+     *         the data is not whole blocks
+     */
+    public byte[] decryptBytes(byte[] data, String key) {
+        if (data.length % 8 != 0) {
+            throw new IllegalArgumentException("Triple DES ciphertext must be a multiple of 8 bytes");
+        }
+        byte[] out = new byte[data.length];
+        ede(data, 0, out, 0, data.length, keySchedules(key), true);
+        return out;
+    }
+
+    /**
+     * Runs len bytes through encrypt-decrypt-encrypt (or its inverse), block by
+     * block and in parallel for large inputs. IP and IP^-1 are applied once per
+     * block; the three 16-round stages run back to back in between.
+     */
+    private static void ede(byte[] in, int inOff, byte[] out, int outOff, int len,
+                            DESKeySchedule[] keys, boolean decrypt) {
+        Objects.checkFromIndexSize(inOff, len, in.length);
+        Objects.checkFromIndexSize(outOff, DESCipher.paddedLength(len), out.length);
+
+        DESKeySchedule k1 = keys[0];
+        DESKeySchedule k2 = keys[1];
+        DESKeySchedule k3 = keys[2];
+
+        BlockRanges.forEach((len + 7) / 8, DESCipher.PARALLEL_BLOCK_THRESHOLD, (from, to) -> {
+            for (int b = from; b < to; b++) {
+                int pos = b * 8;
+                long block = pos + 8 <= len
+                    ? DESCipher.readBlock(in, inOff + pos)
+                    : DESCipher.readTail(in, inOff + pos, len - pos);
+
+                long x = DESCipher.initialPermutation(block);
+                if (decrypt) {
+                    x = DESCipher.rounds(x, k3, true);
+                    x = DESCipher.rounds(x, k2, false);
+                    x = DESCipher.rounds(x, k1, true);
+                } else {
+                    x = DESCipher.rounds(x, k1, false);
+                    x = DESCipher.rounds(x, k2, true);
+                    x = DESCipher.rounds(x, k3, false);
+                }
+                DESCipher.writeBlock(DESCipher.finalPermutation(x), out, outOff + pos);
+            }
+        });
+    }
+
+    /**
+     * Displays step-by-step Triple DES encryption process
+     * @param text The plaintext
+     * @param key The 16 or 24 character key
+     */
+    @Override
+    public void displaySteps(String text, String key) {
+        int keyBytes = key.getBytes(StandardCharsets.UTF_8).length;
+        if (keyBytes != 16 && keyBytes != 24) {
+            System.out.println("Error: Triple DES key must be 16 or 24 bytes (got " + keyBytes + ")");
+            return;
+        }
+
+        System.out.println("\n--- Step-by-Step Triple DES (EDE) Encryption ---");
+        System.out.println("Plaintext: " + text);
+        System.out.println("Key: " + key + (keyBytes == 24 ? " (three keys)" : " (two keys, K3 = K1)"));
+        System.out.println("\n1. Splitting key into K1, K2 and K3 (8 bytes each)");
+        System.out.println("2. Converting plaintext to 64-bit blocks (UTF-8, zero padded)");
+        System.out.println("3. Applying initial permutation (IP)");
+        System.out.println("4. 16 rounds encrypting with K1");
+        System.out.println("5. 16 rounds decrypting with K2");
+        System.out.println("6. 16 rounds encrypting with K3");
+        System.out.println("7. Applying final permutation (IP^-1)");
+        System.out.println("8. Converting result to hexadecimal");
+    }
+}
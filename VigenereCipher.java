@@ -1,3 +1,9 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
 /**
  * Vigenere Cipher Implementation
  * Uses a keyword to shift each letter by the position of the keyword letter
@@ -6,6 +12,26 @@ public class VigenereCipher implements EncryptionAlgorithm {
     
     private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     
+    /** Texts of at least this many characters are processed in parallel chunks */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /** ASCII texts of at least this many characters use the SWAR kernel */
+    static final int SWAR_THRESHOLD = 1024;
+
+    /** Characters per chunk in the parallel path */
+    private static final int CHUNK_SIZE = 1 << 14;
+    
+    // Alphabet index of each ASCII letter (either case), -1 for everything else
+    private static final byte[] LETTER_INDEX = new byte[128];
+
+    static {
+        Arrays.fill(LETTER_INDEX, (byte) -1);
+        for (int i = 0; i < 26; i++) {
+            LETTER_INDEX['A' + i] = (byte) i;
+            LETTER_INDEX['a' + i] = (byte) i;
+        }
+    }
+    
     /**
      * Encrypts plaintext using Vigenere cipher
      * @param plaintext The text to encrypt
@@ -14,37 +40,7 @@ public class VigenereCipher implements EncryptionAlgorithm {
      */
     @Override
     public String encrypt(String plaintext, String key) {
-        plaintext = plaintext.toUpperCase();
-        key = key.toUpperCase();
-        
-        // Handle empty key
-        if (key.isEmpty()) {
-            return plaintext;
-        }
-        
-        StringBuilder ciphertext = new StringBuilder();
-        int keyIndex = 0;
-        
-        for (char c : plaintext.toCharArray()) {
-            if (Character.isLetter(c)) {
-                // Get plaintext letter position
-                int plaintextPos = ALPHABET.indexOf(c);
-                
-                // Get key letter position
-                char keyChar = key.charAt(keyIndex % key.length());
-                int keyPos = ALPHABET.indexOf(keyChar);
-                
-                // Shift by key position (mod 26)
-                int ciphertextPos = (plaintextPos + keyPos) % 26;
-                ciphertext.append(ALPHABET.charAt(ciphertextPos));
-                
-                keyIndex++; // Move to next key letter
-            } else {
-                ciphertext.append(c); // Keep non-letters as-is
-            }
-        }
-        
-        return ciphertext.toString();
+        return crypt(plaintext, key, false);
     }
     
     /**
@@ -55,37 +51,189 @@ public class VigenereCipher implements EncryptionAlgorithm {
      */
     @Override
     public String decrypt(String ciphertext, String key) {
-        ciphertext = ciphertext.toUpperCase();
-        key = key.toUpperCase();
-        
+        return crypt(ciphertext, key, true);
+    }
+
+    /**
+     * Runs text through the shift kernel. Long ASCII texts with keys of up to
+     * AsciiShiftKernel.MAX_TABLE_KEY_LENGTH letters take the SWAR byte path; anything
+     * else goes through the char kernel. The text is only uppercased up front when it
+     * contains non-ASCII characters (where uppercasing can change the length); ASCII
+     * letters are folded by the kernels instead.
+     */
+    private static String crypt(String text, String key, boolean decrypt) {
+        byte[] shifts = compileKey(key, decrypt);
+
         // Handle empty key
-        if (key.isEmpty()) {
-            return ciphertext;
+        if (shifts.length == 0) {
+            return text.toUpperCase();
         }
-        
-        StringBuilder plaintext = new StringBuilder();
-        int keyIndex = 0;
-        
-        for (char c : ciphertext.toCharArray()) {
-            if (Character.isLetter(c)) {
-                // Get ciphertext letter position
-                int ciphertextPos = ALPHABET.indexOf(c);
-                
-                // Get key letter position
-                char keyChar = key.charAt(keyIndex % key.length());
-                int keyPos = ALPHABET.indexOf(keyChar);
-                
-                // Reverse shift (add 26 to handle negative)
-                int plaintextPos = (ciphertextPos - keyPos + 26) % 26;
-                plaintext.append(ALPHABET.charAt(plaintextPos));
-                
-                keyIndex++; // Move to next key letter
+
+        if (!AsciiShiftKernel.isAscii(text)) {
+            text = text.toUpperCase();
+        } else if (text.length() >= SWAR_THRESHOLD && shifts.length <= AsciiShiftKernel.MAX_TABLE_KEY_LENGTH) {
+            byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+            long[] table = AsciiShiftKernel.vigenereTable(shifts);
+            if (bytes.length >= PARALLEL_THRESHOLD) {
+                shiftParallel(bytes.length, shifts.length,
+                    (from, to) -> AsciiShiftKernel.countLetters(bytes, from, to),
+                    (from, to, offset) -> AsciiShiftKernel.vigenere(bytes, from, to, shifts, table, offset));
             } else {
-                plaintext.append(c); // Keep non-letters as-is
+                AsciiShiftKernel.vigenere(bytes, 0, bytes.length, shifts, table, 0);
             }
+            return new String(bytes, StandardCharsets.ISO_8859_1);
         }
-        
-        return plaintext.toString();
+
+        char[] chars = new char[text.length()];
+        text.getChars(0, chars.length, chars, 0);
+        if (chars.length >= PARALLEL_THRESHOLD) {
+            shiftParallel(chars.length, shifts.length,
+                (from, to) -> countLetters(chars, from, to),
+                (from, to, offset) -> shift(chars, from, to, chars, from, shifts, offset));
+        } else {
+            shift(chars, 0, chars.length, chars, 0, shifts, 0);
+        }
+        return new String(chars);
+    }
+
+    /** Counts the letters in a range of the text being shifted */
+    private interface RangeCounter {
+        int count(int from, int to);
+    }
+
+    /** Shifts a range of the text in place, starting at the given key offset */
+    private interface RangeShifter {
+        void shift(int from, int to, int keyOffset);
+    }
+
+    /**
+     * Shifts a text of the given length in place on the common pool. A letter's key
+     * position is the number of letters before it, so the first pass counts letters per
+     * chunk, a prefix sum turns the counts into each chunk's starting key offset, and
+     * the second pass shifts every chunk independently. Output is identical to the
+     * sequential kernel.
+     */
+    private static void shiftParallel(int length, int keyLength, RangeCounter counter, RangeShifter shifter) {
+        int chunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[] offsets = new int[chunks];
+
+        ForkJoinPool.commonPool().invoke(new ChunkTask(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            offsets[chunk] = counter.count(from, Math.min(from + CHUNK_SIZE, length));
+        }, 0, chunks));
+
+        // Exclusive prefix sum of the letter counts, modulo the key length
+        int offset = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int letters = offsets[chunk];
+            offsets[chunk] = offset;
+            offset = (int) ((offset + (long) letters) % keyLength);
+        }
+
+        ForkJoinPool.commonPool().invoke(new ChunkTask(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            shifter.shift(from, Math.min(from + CHUNK_SIZE, length), offsets[chunk]);
+        }, 0, chunks));
+    }
+
+    /** Fork/join task that halves its chunk range until one chunk is left */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient IntConsumer body;
+        private final int from;
+        private final int to;
+
+        ChunkTask(IntConsumer body, int from, int to) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(body, from, mid), new ChunkTask(body, mid, to));
+        }
+    }
+
+    /**
+     * Counts the characters in in[from, to) that the kernel shifts, i.e. that advance the key
+     */
+    static int countLetters(char[] in, int from, int to) {
+        int letters = 0;
+        for (int i = from; i < to; i++) {
+            if (advancesKey(in[i])) {
+                letters++;
+            }
+        }
+        return letters;
+    }
+
+    /**
+     * @return true if the kernel shifts c, moving on to the next key letter. Letters
+     *         stay letters under encryption, so this holds for plaintext and ciphertext alike.
+     */
+    static boolean advancesKey(char c) {
+        return c < 128 ? LETTER_INDEX[c] >= 0 : Character.isLetter(c);
+    }
+
+    /**
+     * Compiles a keyword into per-letter shifts (0-25). Characters outside A-Z count
+     * as position -1, i.e. a shift of 25, as ALPHABET.indexOf gave them before.
+     * @param key The keyword (any case)
+     * @param decrypt true for the inverse shifts
+     * @return One shift per keyword character
+     */
+    static byte[] compileKey(String key, boolean decrypt) {
+        key = key.toUpperCase();
+        byte[] shifts = new byte[key.length()];
+        for (int i = 0; i < shifts.length; i++) {
+            char c = key.charAt(i);
+            int shift = c >= 'A' && c <= 'Z' ? c - 'A' : 25;
+            shifts[i] = (byte) (decrypt ? (26 - shift) % 26 : shift);
+        }
+        return shifts;
+    }
+
+    /**
+     * Vigenere kernel: shifts the letters of in[from, to) into out (which may be in),
+     * uppercasing them and passing everything else through (non-ASCII characters
+     * uppercased). Non-ASCII letters count as position -1 (25), matching the old
+     * ALPHABET.indexOf behaviour.
+     * @param shifts Compiled key from compileKey
+     * @param keyOffset Index into shifts for the first letter
+     * @return Index into shifts for the next letter after this range
+     */
+    static int shift(char[] in, int from, int to, char[] out, int outOff, byte[] shifts, int keyOffset) {
+        int k = keyOffset;
+        for (int i = from; i < to; i++) {
+            char c = in[i];
+            int pos;
+            if (c < 128) {
+                pos = LETTER_INDEX[c];
+            } else {
+                pos = Character.isLetter(c) ? 25 : -1;
+                c = Character.toUpperCase(c);
+            }
+            if (pos < 0) {
+                out[outOff + i - from] = c; // Keep non-letters as-is
+                continue;
+            }
+            int shifted = pos + shifts[k];
+            if (shifted >= 26) {
+                shifted -= 26;
+            }
+            out[outOff + i - from] = (char) ('A' + shifted);
+            if (++k == shifts.length) {
+                k = 0; // Move to next key letter
+            }
+        }
+        return k;
     }
     
     /**
@@ -0,0 +1,257 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Sparse letter-offset index for random-access Vigenere decryption.
+ * The key position of a character is the number of letters before it, so the index
+ * records that count at every interval-th character. Decrypting a range then only
+ * needs the characters from the checkpoint before it: O(interval + range) work
+ * instead of processing the whole text from the start.
+ *
+ * Letters stay letters under Vigenere encryption, so an index built from the
+ * plaintext also fits the ciphertext. The index can be saved next to the ciphertext
+ * with write() and loaded with read().
+ */
+public final class VigenereIndex {
+
+    /** Default distance between checkpoints in characters */
+    public static final int DEFAULT_INTERVAL = 4096;
+
+    private final int interval;
+    private final long length;
+    // checkpoints[i] is the number of letters in the first i * interval characters
+    private final long[] checkpoints;
+
+    private VigenereIndex(int interval, long length, long[] checkpoints) {
+        this.interval = interval;
+        this.length = length;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Indexes a text held in memory
+     * @param text The plaintext or ciphertext
+     * @param interval Characters between checkpoints
+     * @return The index
+     */
+    public static VigenereIndex build(CharSequence text, int interval) {
+        checkInterval(interval);
+        long[] checkpoints = new long[text.length() / interval + 1];
+        long letters = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (i % interval == 0) {
+                checkpoints[i / interval] = letters;
+            }
+            if (VigenereCipher.advancesKey(text.charAt(i))) {
+                letters++;
+            }
+        }
+        if (text.length() % interval == 0) {
+            checkpoints[checkpoints.length - 1] = letters;
+        }
+        return new VigenereIndex(interval, text.length(), checkpoints);
+    }
+
+    /**
+     * Indexes a text read to the end of a Reader (not closed)
+     * @param in The plaintext or ciphertext
+     * @param interval Characters between checkpoints
+     * @return The index
+     * @throws IOException If reading fails
+     */
+    public static VigenereIndex build(Reader in, int interval) throws IOException {
+        checkInterval(interval);
+        char[] buffer = new char[interval];
+        long[] checkpoints = new long[16];
+        int count = 1;
+        long letters = 0;
+        long length = 0;
+
+        int filled;
+        while ((filled = readFully(in, buffer, interval)) > 0) {
+            letters += VigenereCipher.countLetters(buffer, 0, filled);
+            length += filled;
+            if (filled < interval) {
+                break;
+            }
+            if (count == checkpoints.length) {
+                checkpoints = Arrays.copyOf(checkpoints, count * 2);
+            }
+            checkpoints[count++] = letters;
+        }
+        return new VigenereIndex(interval, length, Arrays.copyOf(checkpoints, count));
+    }
+
+    private static void checkInterval(int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+    }
+
+    /** Reads up to count chars, stopping early only at end of input */
+    private static int readFully(Reader in, char[] buffer, int count) throws IOException {
+        int filled = 0;
+        while (filled < count) {
+            int read = in.read(buffer, filled, count - filled);
+            if (read == -1) {
+                break;
+            }
+            filled += read;
+        }
+        return filled;
+    }
+
+    /**
+     * @return Characters between checkpoints
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return Length of the indexed text in characters
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return Bytes write() produces for this index
+     */
+    public long getSerializedSize() {
+        return 4 + 8 + 4 + 8L * checkpoints.length;
+    }
+
+    /**
+     * Counts the letters before a position, reading at most one interval of text
+     * @param text The indexed text
+     * @param position A character position, 0 to getLength()
+     * @return Number of letters in text[0, position)
+     */
+    public long lettersBefore(CharSequence text, long position) {
+        checkRange(text, position, position);
+        int checkpoint = (int) (position / interval);
+        long letters = checkpoints[checkpoint];
+        for (int i = checkpoint * interval; i < position; i++) {
+            if (VigenereCipher.advancesKey(text.charAt(i))) {
+                letters++;
+            }
+        }
+        return letters;
+    }
+
+    /**
+     * Decrypts only the characters [from, to) of an indexed ciphertext
+     * @param ciphertext The indexed ciphertext
+     * @param from First character position
+     * @param to Position after the last character
+     * @param key The keyword
+     * @return The plaintext of that range, as VigenereCipher.decrypt would give it
+     */
+    public String decrypt(CharSequence ciphertext, long from, long to, String key) {
+        checkRange(ciphertext, from, to);
+        char[] range = new char[(int) (to - from)];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = ciphertext.charAt((int) from + i);
+        }
+
+        // An empty key leaves the text uppercased, as in VigenereCipher
+        if (key.isEmpty()) {
+            return new String(range).toUpperCase();
+        }
+        VigenereSession session = new VigenereSession(key, true);
+        session.seekLetters(lettersBefore(ciphertext, from));
+        session.update(range, 0, range.length, range, 0);
+        return new String(range);
+    }
+
+    /**
+     * Decrypts only the characters [from, to) of an indexed ciphertext read from a
+     * Reader positioned at its start (not closed). Skips to the checkpoint before from
+     * and reads at most one interval more than the range.
+     * @param in The indexed ciphertext
+     * @param from First character position
+     * @param to Position after the last character
+     * @param key The keyword
+     * @return The plaintext of that range, as VigenereCipher.decrypt would give it
+     * @throws IOException If reading fails or the text is shorter than the index says
+     */
+    public String decrypt(Reader in, long from, long to, String key) throws IOException {
+        checkRange(null, from, to);
+        int checkpoint = (int) (from / interval);
+        long start = (long) checkpoint * interval;
+        long skipped = 0;
+        while (skipped < start) {
+            long n = in.skip(start - skipped);
+            if (n <= 0) {
+                throw new EOFException("Ciphertext ends before position " + start);
+            }
+            skipped += n;
+        }
+
+        char[] chars = new char[(int) (to - start)];
+        if (readFully(in, chars, chars.length) < chars.length) {
+            throw new EOFException("Ciphertext ends before position " + to);
+        }
+        int lead = (int) (from - start);
+
+        // An empty key leaves the text uppercased, as in VigenereCipher
+        if (key.isEmpty()) {
+            return new String(chars, lead, chars.length - lead).toUpperCase();
+        }
+        VigenereSession session = new VigenereSession(key, true);
+        session.seekLetters(checkpoints[checkpoint] + VigenereCipher.countLetters(chars, 0, lead));
+        session.update(chars, lead, chars.length - lead, chars, lead);
+        return new String(chars, lead, chars.length - lead);
+    }
+
+    private void checkRange(CharSequence text, long from, long to) {
+        if (from < 0 || from > to || to > length) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside text of length " + length);
+        }
+        if (text != null && text.length() != length) {
+            throw new IllegalArgumentException("Text length " + text.length() + " does not match indexed length " + length);
+        }
+        if (to - from > Integer.MAX_VALUE - interval) {
+            throw new IllegalArgumentException("Range is too large to decrypt at once");
+        }
+    }
+
+    /**
+     * Saves the index
+     * @param out The destination
+     * @throws IOException If writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(interval);
+        out.writeLong(length);
+        out.writeInt(checkpoints.length);
+        for (long checkpoint : checkpoints) {
+            out.writeLong(checkpoint);
+        }
+    }
+
+    /**
+     * Loads an index saved with write()
+     * @param in The source
+     * @return The index
+     * @throws IOException If reading fails or the data is not a valid index
+     */
+    public static VigenereIndex read(DataInput in) throws IOException {
+        int interval = in.readInt();
+        long length = in.readLong();
+        int count = in.readInt();
+        if (interval <= 0 || length < 0 || count != length / interval + 1) {
+            throw new IOException("Invalid Vigenere index header");
+        }
+        long[] checkpoints = new long[count];
+        for (int i = 0; i < count; i++) {
+            checkpoints[i] = in.readLong();
+        }
+        return new VigenereIndex(interval, length, checkpoints);
+    }
+}
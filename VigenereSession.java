@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Stateful Vigenere encryption/decryption session for text that arrives in chunks.
+ * The position in the keyword carries over from one chunk to the next, so feeding a
+ * text through in any number of pieces gives the same result as one
+ * VigenereCipher.encrypt/decrypt call on the whole text. Memory use is one buffer,
+ * however long the stream.
+ *
+ * Characters are processed one at a time, so characters whose uppercase form is
+ * longer (such as 'ß' becoming "SS") are shifted as a single letter here, unlike in
+ * VigenereCipher. A session is not thread-safe.
+ */
+public class VigenereSession {
+
+    /** Default buffer size in chars for Reader/Writer transfers */
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+    private final byte[] shifts;
+    private final boolean decrypt;
+    private int keyOffset;
+
+    /**
+     * Creates a session positioned at the first keyword letter
+     * @param key The keyword (must not be empty)
+     * @param decrypt true to decrypt, false to encrypt
+     */
+    public VigenereSession(String key, boolean decrypt) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Keyword cannot be empty");
+        }
+        this.shifts = VigenereCipher.compileKey(key, decrypt);
+        this.decrypt = decrypt;
+    }
+
+    /**
+     * @return true if this session decrypts
+     */
+    public boolean isDecrypting() {
+        return decrypt;
+    }
+
+    /**
+     * @return Index of the keyword letter that will shift the next letter
+     */
+    public int getKeyOffset() {
+        return keyOffset;
+    }
+
+    /**
+     * Positions the session so the next letter is shifted by keyword letter keyOffset
+     * @param keyOffset Index into the keyword, 0 to keyword length - 1
+     */
+    public void setKeyOffset(int keyOffset) {
+        if (keyOffset < 0 || keyOffset >= shifts.length) {
+            throw new IllegalArgumentException("Key offset must be between 0 and " + (shifts.length - 1));
+        }
+        this.keyOffset = keyOffset;
+    }
+
+    /**
+     * Positions the session for text that follows the given number of letters
+     * @param letters Number of letters already processed, e.g. from VigenereIndex
+     */
+    public void seekLetters(long letters) {
+        keyOffset = (int) Math.floorMod(letters, (long) shifts.length);
+    }
+
+    /**
+     * Moves the session back to the first keyword letter, ready for a new text
+     */
+    public void reset() {
+        keyOffset = 0;
+    }
+
+    /**
+     * Processes the next chunk of text
+     * @param chunk The next piece of the text
+     * @return The processed piece, the same length as chunk
+     */
+    public String update(String chunk) {
+        char[] chars = chunk.toCharArray();
+        update(chars, 0, chars.length, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Processes the next chunk of text from an array
+     * @param in Source characters
+     * @param offset Start of the chunk in in
+     * @param length Number of characters
+     * @param out Destination (may be in, at the same offset)
+     * @param outOffset Start of the output in out
+     */
+    public void update(char[] in, int offset, int length, char[] out, int outOffset) {
+        keyOffset = VigenereCipher.shift(in, offset, offset + length, out, outOffset, shifts, keyOffset);
+    }
+
+    /**
+     * Processes as many characters as both buffers allow, advancing both positions
+     * @param in Source characters
+     * @param out Destination buffer
+     * @return Number of characters processed
+     */
+    public int update(CharBuffer in, CharBuffer out) {
+        int count = Math.min(in.remaining(), out.remaining());
+        if (in.hasArray() && out.hasArray() && !out.isReadOnly()) {
+            update(in.array(), in.arrayOffset() + in.position(), count,
+                out.array(), out.arrayOffset() + out.position());
+            in.position(in.position() + count);
+            out.position(out.position() + count);
+            return count;
+        }
+
+        char[] chunk = new char[Math.min(count, DEFAULT_BUFFER_SIZE)];
+        int done = 0;
+        while (done < count) {
+            int n = Math.min(chunk.length, count - done);
+            in.get(chunk, 0, n);
+            update(chunk, 0, n, chunk, 0);
+            out.put(chunk, 0, n);
+            done += n;
+        }
+        return count;
+    }
+
+    /**
+     * Processes a Reader until end of input with the default buffer size.
+     * Neither side is closed; the writer is flushed.
+     * @param in The text source
+     * @param out The destination
+     * @return Number of characters written
+     * @throws IOException If reading or writing fails
+     */
+    public long transfer(Reader in, Writer out) throws IOException {
+        return transfer(in, out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Processes a Reader until end of input. Neither side is closed; the writer is flushed.
+     * @param in The text source
+     * @param out The destination
+     * @param bufferSize Characters processed per chunk
+     * @return Number of characters written
+     * @throws IOException If reading or writing fails
+     */
+    public long transfer(Reader in, Writer out, int bufferSize) throws IOException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        char[] buffer = new char[bufferSize];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            update(buffer, 0, read, buffer, 0);
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        out.flush();
+        return total;
+    }
+}
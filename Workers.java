@@ -0,0 +1,39 @@
+/**
+ * Joining the worker threads of the key searches and solvers. Their results are
+ * read from shared state once the workers are done, so a caller must never return
+ * while a worker is still running, even when the caller is interrupted.
+ */
+final class Workers {
+
+    private Workers() {
+    }
+
+    /**
+     * Waits for every worker to finish, whether or not the calling thread is
+     * interrupted. On the first interrupt, onInterrupt runs (typically setting a stop
+     * flag the workers poll), and the interrupt status is restored before returning.
+     * @param workers The started workers
+     * @param onInterrupt Run once if the caller is interrupted, or null
+     * @return true if the caller was interrupted while waiting
+     */
+    static boolean joinAll(Thread[] workers, Runnable onInterrupt) {
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    if (!interrupted && onInterrupt != null) {
+                        onInterrupt.run();
+                    }
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return interrupted;
+    }
+}